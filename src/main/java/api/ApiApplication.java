@@ -18,7 +18,7 @@ import javax.ws.rs.core.Application;
 @ApplicationPath("/")
 
 @LoginConfig(authMethod = "MP-JWT", realmName = "jwt-jaspi")
-@DeclareRoles({"user"})
+@DeclareRoles({"user", "admin"})
 
 @OpenAPIDefinition(
         info = @Info(
@@ -70,7 +70,6 @@ import javax.ws.rs.core.Application;
                                         + "    \"slug\": \"how-to-train-your-dragon\",\n"
                                         + "    \"title\": \"How to train your dragon\",\n"
                                         + "    \"description\": \"Ever wonder how?\",\n"
-                                        + "    \"body\": \"It takes a Jacobian\",\n"
                                         + "    \"tagList\": [\"dragons\", \"training\"],\n"
                                         + "    \"createdAt\": \"2016-02-18T03:22:56.637Z\",\n"
                                         + "    \"updatedAt\": \"2016-02-18T03:48:35.824Z\",\n"
@@ -86,7 +85,6 @@ import javax.ws.rs.core.Application;
                                         + "    \"slug\": \"how-to-train-your-dragon-2\",\n"
                                         + "    \"title\": \"How to train your dragon 2\",\n"
                                         + "    \"description\": \"So toothless\",\n"
-                                        + "    \"body\": \"It a dragon\",\n"
                                         + "    \"tagList\": [\"dragons\", \"training\"],\n"
                                         + "    \"createdAt\": \"2016-02-18T03:22:56.637Z\",\n"
                                         + "    \"updatedAt\": \"2016-02-18T03:48:35.824Z\",\n"
@@ -5,6 +5,7 @@ import org.eclipse.microprofile.rest.client.inject.RegisterRestClient;
 import javax.enterprise.context.ApplicationScoped;
 import javax.json.JsonObject;
 import javax.ws.rs.*;
+import javax.ws.rs.core.Response;
 
 /**
  * The methods that the System, at https://localhost:9443/system, needs to implement.
@@ -31,7 +32,9 @@ public interface ApiClient extends AutoCloseable {
 
     @GET
     @Path("/profiles/{username}")
-    public String getProfile(@HeaderParam("Authorization") String authHeader, @PathParam("username") String username);
+    public Response getProfile(@HeaderParam("Authorization") String authHeader, @PathParam("username") String username,
+                               @HeaderParam("If-None-Match") String ifNoneMatch,
+                               @HeaderParam("If-Modified-Since") String ifModifiedSince);
 
     @POST
     @Path("/profiles/{username}/follow")
@@ -43,19 +46,26 @@ public interface ApiClient extends AutoCloseable {
 
     @GET
     @Path("/articles")
-    public String getListArticles(@HeaderParam("Authorization") String authHeader, @QueryParam("tag") String tag,
-                                  @QueryParam("author") String author, @QueryParam("favorited") String favorited,
-                                  @DefaultValue("20") @QueryParam(value = "limit") int limit,
-                                  @DefaultValue("0") @QueryParam("offset") int offset);
+    public Response getListArticles(@HeaderParam("Authorization") String authHeader, @QueryParam("tag") String tag,
+                                    @QueryParam("author") String author, @QueryParam("favorited") String favorited,
+                                    @DefaultValue("20") @QueryParam(value = "limit") int limit,
+                                    @DefaultValue("0") @QueryParam("offset") int offset,
+                                    @QueryParam("cursor") String cursor, @QueryParam("fields") String fields,
+                                    @HeaderParam("If-None-Match") String ifNoneMatch);
 
     @GET
     @Path("/articles/feed")
-    public String getFeedArticles(@HeaderParam("Authorization") String authHeader, @QueryParam("limit") int limit,
-                                  @QueryParam("offset") int offset);
+    public Response getFeedArticles(@HeaderParam("Authorization") String authHeader,
+                                    @DefaultValue("20") @QueryParam("limit") int limit,
+                                    @DefaultValue("0") @QueryParam("offset") int offset,
+                                    @QueryParam("cursor") String cursor, @QueryParam("fields") String fields,
+                                    @HeaderParam("If-None-Match") String ifNoneMatch);
 
     @GET
     @Path("/articles/{slug}")
-    public String getArticle(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug);
+    public Response getArticle(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug,
+                               @HeaderParam("If-None-Match") String ifNoneMatch,
+                               @HeaderParam("If-Modified-Since") String ifModifiedSince);
 
     @POST
     @Path("/articles")
@@ -76,7 +86,10 @@ public interface ApiClient extends AutoCloseable {
 
     @GET
     @Path("/articles/{slug}/comments")
-    public String getComments(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug);
+    public Response getComments(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug,
+                                @DefaultValue("0") @QueryParam("limit") int limit,
+                                @QueryParam("cursor") String cursor, @QueryParam("since") String since,
+                                @HeaderParam("If-None-Match") String ifNoneMatch);
 
     @DELETE
     @Path("/articles/{slug}/comments/{id}")
@@ -92,6 +105,6 @@ public interface ApiClient extends AutoCloseable {
 
     @GET
     @Path("/tags")
-    public String getTags();
+    public Response getTags(@QueryParam("limit") int limit, @HeaderParam("If-None-Match") String ifNoneMatch);
 
 }
\ No newline at end of file
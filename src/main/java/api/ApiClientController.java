@@ -8,16 +8,20 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponse;
 import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 import org.eclipse.microprofile.openapi.annotations.security.SecurityRequirement;
 import org.eclipse.microprofile.openapi.annotations.tags.Tag;
-import org.eclipse.microprofile.rest.client.inject.RestClient;
 
+import javax.annotation.PostConstruct;
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
 import javax.json.JsonObject;
 import javax.ws.rs.*;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
 
 /**
- * A client facing REST end-point which makes https requests to the system.
+ * A client facing REST end-point which forwards requests to the system.
+ * <p>
+ * By default requests are dispatched in-process. Set <code>api.dispatch.mode=rest-client</code> to make https requests
+ * to the system instead.
  */
 @RequestScoped
 @Path("/")
@@ -26,8 +30,20 @@ import javax.ws.rs.core.MediaType;
 public class ApiClientController {
 
     @Inject
-    @RestClient
-    private ApiClient apiClient;
+    private DispatchMode dispatchMode;
+
+    @Inject
+    private InProcessDispatcher inProcessDispatcher;
+
+    @Inject
+    private RestClientDispatcher restClientDispatcher;
+
+    private ApiDispatcher dispatcher;
+
+    @PostConstruct
+    private void selectDispatcher() {
+        dispatcher = dispatchMode.isRestClient() ? restClientDispatcher : inProcessDispatcher;
+    }
 
     @POST
     @Path("/users/login")
@@ -36,8 +52,8 @@ public class ApiClientController {
     @RequestBody(content = @Content(mediaType = "application/json", schema = @Schema(ref = "authenticationExample")))
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Login request sent", content = @Content(mediaType = "application/json", schema = @Schema(ref = "userExample")))})
-    public String authenticationClientSide(JsonObject user) {
-        return apiClient.authentication(user);
+    public Response authenticationClientSide(JsonObject user) {
+        return dispatcher.authentication(user);
     }
 
     @POST
@@ -47,8 +63,8 @@ public class ApiClientController {
     @RequestBody(content = @Content(mediaType = "application/json", schema = @Schema(ref = "registrationExample")))
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "New User request sent", content = @Content(mediaType = "application/json", schema = @Schema(ref = "userExample")))})
-    public String registrationClientSide(JsonObject user) {
-        return apiClient.registration(user);
+    public Response registrationClientSide(JsonObject user) {
+        return dispatcher.registration(user);
     }
 
     @GET
@@ -56,8 +72,8 @@ public class ApiClientController {
     @Tag(ref = "User")
     @SecurityRequirement(name = "Authentication")
     @Operation(summary = "Get Current User", description = "Returns a User that's the current user")
-    public String getCurrentUserClientSide(@HeaderParam("Authorization") String authHeader) {
-        return apiClient.getCurrentUser(authHeader);
+    public Response getCurrentUserClientSide(@HeaderParam("Authorization") String authHeader) {
+        return dispatcher.getCurrentUser(authHeader);
     }
 
     @PUT
@@ -66,8 +82,8 @@ public class ApiClientController {
     @SecurityRequirement(name = "Authentication")
     @Operation(summary = "Update User", description = "Returns the updated User. Accepted fields: email, username, password, image, bio")
     @RequestBody(content = @Content(mediaType = "application/json", schema = @Schema(ref = "updateExample")))
-    public String updateUserClientSide(@HeaderParam("Authorization") String authHeader, JsonObject user) {
-        return apiClient.updateUser(authHeader, user);
+    public Response updateUserClientSide(@HeaderParam("Authorization") String authHeader, JsonObject user) {
+        return dispatcher.updateUser(authHeader, user);
     }
 
     @GET
@@ -77,9 +93,11 @@ public class ApiClientController {
     @Operation(summary = "Get Profile", description = "Returns a Profile")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Profile retrieved", content = @Content(mediaType = "application/json", schema = @Schema(ref = "profileExample")))})
-    public String getProfileClientSide(@HeaderParam("Authorization") String authHeader,
-                                       @PathParam("username") String username) {
-        return apiClient.getProfile(authHeader, username);
+    public Response getProfileClientSide(@HeaderParam("Authorization") String authHeader,
+                                       @PathParam("username") String username,
+                                       @HeaderParam("If-None-Match") String ifNoneMatch,
+                                       @HeaderParam("If-Modified-Since") String ifModifiedSince) {
+        return dispatcher.getProfile(authHeader, username, ifNoneMatch, ifModifiedSince);
     }
 
     @POST
@@ -89,9 +107,9 @@ public class ApiClientController {
     @Operation(summary = "Follow User", description = "Returns a Profile")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Profile followed", content = @Content(mediaType = "application/json", schema = @Schema(ref = "profileExample")))})
-    public String followUserClientSide(@HeaderParam("Authorization") String authHeader,
+    public Response followUserClientSide(@HeaderParam("Authorization") String authHeader,
                                        @PathParam("username") String username) {
-        return apiClient.followUser(authHeader, username);
+        return dispatcher.followUser(authHeader, username);
     }
 
     @DELETE
@@ -101,35 +119,41 @@ public class ApiClientController {
     @Operation(summary = "Unfollow User", description = "Returns a Profile")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Profile unfollowed", content = @Content(mediaType = "application/json", schema = @Schema(ref = "profileExample")))})
-    public String unfollowUserClientSide(@HeaderParam("Authorization") String authHeader,
+    public Response unfollowUserClientSide(@HeaderParam("Authorization") String authHeader,
                                          @PathParam("username") String username) {
-        return apiClient.unfollowUser(authHeader, username);
+        return dispatcher.unfollowUser(authHeader, username);
     }
 
     @GET
     @Path("/articles")
     @Tag(ref = "Articles")
     @SecurityRequirement(name = "Authentication")
-    @Operation(summary = "List Articles", description = "Returns most recent articles globally by default, provide tag, author or favorited query parameter to filter results")
+    @Operation(summary = "List Articles", description = "Returns most recent articles globally by default, provide tag, author or favorited query parameter to filter results\n\nPass the returned nextCursor as the cursor query parameter to get the next page. offset is ignored when a cursor is given\n\nArticles leave out body unless it is asked for. Pass a comma separated list of article fields, such as slug,title,body, as the fields query parameter to choose which are returned")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Articles retrieved", content = @Content(mediaType = "application/json", schema = @Schema(ref = "multipleArticlesExample")))})
-    public String getListArticlesClientSide(@HeaderParam("Authorization") String authHeader,
+    public Response getListArticlesClientSide(@HeaderParam("Authorization") String authHeader,
                                             @QueryParam("tag") String tag, @QueryParam("author") String author,
                                             @QueryParam("favorited") String favorited, @DefaultValue("20") @QueryParam(value = "limit") int limit,
-                                            @DefaultValue("0") @QueryParam("offset") int offset) {
-        return apiClient.getListArticles(authHeader, tag, author, favorited, limit, offset);
+                                            @DefaultValue("0") @QueryParam("offset") int offset,
+                                            @QueryParam("cursor") String cursor, @QueryParam("fields") String fields,
+                                            @HeaderParam("If-None-Match") String ifNoneMatch) {
+        return dispatcher.getListArticles(authHeader, tag, author, favorited, limit, offset, cursor, fields,
+                ifNoneMatch);
     }
 
     @GET
     @Path("/articles/feed")
     @Tag(ref = "Articles")
-    @Operation(summary = "Feed Articles", description = "Can also take limit and offset query parameters like List Articles")
+    @Operation(summary = "Feed Articles", description = "Returns the most recent articles by followed users first. Can also take limit, offset, cursor and fields query parameters like List Articles")
     @SecurityRequirement(name = "Authentication")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Articles retrieved", content = @Content(mediaType = "application/json", schema = @Schema(ref = "multipleArticlesExample")))})
-    public String getFeedArticlesClientSide(@HeaderParam("Authorization") String authHeader,
-                                            @QueryParam("limit") int limit, @QueryParam("offset") int offset) {
-        return apiClient.getFeedArticles(authHeader, limit, offset);
+    public Response getFeedArticlesClientSide(@HeaderParam("Authorization") String authHeader,
+                                            @DefaultValue("20") @QueryParam("limit") int limit,
+                                            @DefaultValue("0") @QueryParam("offset") int offset,
+                                            @QueryParam("cursor") String cursor, @QueryParam("fields") String fields,
+                                            @HeaderParam("If-None-Match") String ifNoneMatch) {
+        return dispatcher.getFeedArticles(authHeader, limit, offset, cursor, fields, ifNoneMatch);
     }
 
     @GET
@@ -139,9 +163,11 @@ public class ApiClientController {
     @Operation(summary = "Get Article", description = "Will return single article")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Article retrieved", content = @Content(mediaType = "application/json", schema = @Schema(ref = "articleExample")))})
-    public String getArticleClientSide(@HeaderParam("Authorization") String authHeader,
-                                       @PathParam("slug") String slug) {
-        return apiClient.getArticle(authHeader, slug);
+    public Response getArticleClientSide(@HeaderParam("Authorization") String authHeader,
+                                       @PathParam("slug") String slug,
+                                       @HeaderParam("If-None-Match") String ifNoneMatch,
+                                       @HeaderParam("If-Modified-Since") String ifModifiedSince) {
+        return dispatcher.getArticle(authHeader, slug, ifNoneMatch, ifModifiedSince);
     }
 
     @POST
@@ -152,8 +178,8 @@ public class ApiClientController {
     @RequestBody(content = @Content(mediaType = "application/json", schema = @Schema(ref = "createArticleExample")))
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Article created", content = @Content(mediaType = "application/json", schema = @Schema(ref = "articleExample")))})
-    public String createArticleClientSide(@HeaderParam("Authorization") String authHeader, JsonObject article) {
-        return apiClient.createArticle(authHeader, article);
+    public Response createArticleClientSide(@HeaderParam("Authorization") String authHeader, JsonObject article) {
+        return dispatcher.createArticle(authHeader, article);
     }
 
     @PUT
@@ -164,9 +190,9 @@ public class ApiClientController {
     @RequestBody(content = @Content(mediaType = "application/json", schema = @Schema(ref = "updateArticleExample")))
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Article updated", content = @Content(mediaType = "application/json", schema = @Schema(ref = "articleExample")))})
-    public String updateArticleClientSide(@HeaderParam("Authorization") String authHeader,
+    public Response updateArticleClientSide(@HeaderParam("Authorization") String authHeader,
                                           @PathParam("slug") String slug, JsonObject article) {
-        return apiClient.updateArticle(authHeader, slug, article);
+        return dispatcher.updateArticle(authHeader, slug, article);
     }
 
     @DELETE
@@ -175,9 +201,9 @@ public class ApiClientController {
     @SecurityRequirement(name = "Authentication")
     @Operation(summary = "Delete Article", description = "Deletes an Article")
     @APIResponses(value = {@APIResponse(responseCode = "200", description = "Article deleted")})
-    public String deleteArticleClientSide(@HeaderParam("Authorization") String authHeader,
+    public Response deleteArticleClientSide(@HeaderParam("Authorization") String authHeader,
                                           @PathParam("slug") String slug) {
-        return apiClient.deleteArticle(authHeader, slug);
+        return dispatcher.deleteArticle(authHeader, slug);
     }
 
     @POST
@@ -187,21 +213,25 @@ public class ApiClientController {
     @Operation(summary = "Add comment", description = "Adds a comment to an Article\n\nRequired field: body")
     @RequestBody(content = @Content(mediaType = "application/json", schema = @Schema(ref = "addCommentExample")))
     @APIResponses(value = {@APIResponse(responseCode = "200", description = "Comment added", content = @Content(mediaType = "application/json", schema = @Schema(ref = "commentExample")))})
-    public String addCommentClientSide(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug,
+    public Response addCommentClientSide(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug,
                                        JsonObject comment) {
-        return apiClient.addComment(authHeader, slug, comment);
+        return dispatcher.addComment(authHeader, slug, comment);
     }
 
     @GET
     @Path("/articles/{slug}/comments")
     @Tag(ref = "Articles")
     @SecurityRequirement(name = "Authentication")
-    @Operation(summary = "Get comments", description = "Get Comments from an Article")
+    @Operation(summary = "Get comments", description = "Get Comments from an Article, oldest first. Can also take a limit (0 for all), a cursor from nextCursor, or since: a Comment id or createdAt time, to only get newer Comments")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Comments retrieved", content = @Content(mediaType = "application/json", schema = @Schema(ref = "multipleCommentsExample")))})
-    public String getCommentsClientSide(@HeaderParam("Authorization") String authHeader,
-                                        @PathParam("slug") String slug) {
-        return apiClient.getComments(authHeader, slug);
+    public Response getCommentsClientSide(@HeaderParam("Authorization") String authHeader,
+                                        @PathParam("slug") String slug,
+                                        @DefaultValue("0") @QueryParam("limit") int limit,
+                                        @QueryParam("cursor") String cursor,
+                                        @QueryParam("since") String since,
+                                        @HeaderParam("If-None-Match") String ifNoneMatch) {
+        return dispatcher.getComments(authHeader, slug, limit, cursor, since, ifNoneMatch);
     }
 
     @DELETE
@@ -210,9 +240,9 @@ public class ApiClientController {
     @SecurityRequirement(name = "Authentication")
     @Operation(summary = "Delete comment", description = "Delete a Comment from an Article")
     @APIResponses(value = {@APIResponse(responseCode = "200", description = "Comment deleted")})
-    public String deleteCommentClientSide(@HeaderParam("Authorization") String authHeader,
+    public Response deleteCommentClientSide(@HeaderParam("Authorization") String authHeader,
                                           @PathParam("slug") String slug, @PathParam("id") int commentId) {
-        return apiClient.deleteComment(authHeader, slug, commentId);
+        return dispatcher.deleteComment(authHeader, slug, commentId);
     }
 
     @POST
@@ -222,8 +252,8 @@ public class ApiClientController {
     @Operation(summary = "Favorite Article", description = "Favorite an Article")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Article favorited", content = @Content(mediaType = "application/json", schema = @Schema(ref = "articleExample")))})
-    public String favoriteArticleClientSide(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
-        return apiClient.favoriteArticle(authHeader, slug);
+    public Response favoriteArticleClientSide(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
+        return dispatcher.favoriteArticle(authHeader, slug);
     }
 
     @DELETE
@@ -233,18 +263,19 @@ public class ApiClientController {
     @Operation(summary = "Unfavorite Article", description = "Unfavorite an Article")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "Article unfavorited", content = @Content(mediaType = "application/json", schema = @Schema(ref = "articleExample")))})
-    public String unfavoriteArticleClientSide(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
-        return apiClient.unfavoriteArticle(authHeader, slug);
+    public Response unfavoriteArticleClientSide(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
+        return dispatcher.unfavoriteArticle(authHeader, slug);
     }
 
     @GET
     @Path("/tags")
     @Tag(ref = "Tags")
-    @Operation(summary = "Get Tags", description = "Returns a list of all the tags")
+    @Operation(summary = "Get Tags", description = "Returns a list of all the tags, most used first\n\nProvide limit to only return the most used tags")
     @APIResponses(value = {
             @APIResponse(responseCode = "200", description = "All tags", content = @Content(mediaType = "application/json", schema = @Schema(ref = "listOfTagsExample")))})
-    public String getTagsClientSide() {
-        return apiClient.getTags();
+    public Response getTagsClientSide(@QueryParam("limit") int limit,
+                                      @HeaderParam("If-None-Match") String ifNoneMatch) {
+        return dispatcher.getTags(limit, ifNoneMatch);
     }
 
 }
\ No newline at end of file
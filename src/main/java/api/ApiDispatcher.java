@@ -0,0 +1,55 @@
+package api;
+
+import javax.json.JsonObject;
+import javax.ws.rs.core.Response;
+
+/**
+ * Forwards the client facing requests of {@link ApiClientController} to the system.
+ * <p>
+ * See {@link InProcessDispatcher} and {@link RestClientDispatcher} for the available modes, selected with the
+ * <code>api.dispatch.mode</code> config property.
+ */
+public interface ApiDispatcher {
+
+    public Response authentication(JsonObject user);
+
+    public Response registration(JsonObject user);
+
+    public Response getCurrentUser(String authHeader);
+
+    public Response updateUser(String authHeader, JsonObject user);
+
+    public Response getProfile(String authHeader, String username, String ifNoneMatch, String ifModifiedSince);
+
+    public Response followUser(String authHeader, String username);
+
+    public Response unfollowUser(String authHeader, String username);
+
+    public Response getListArticles(String authHeader, String tag, String author, String favorited, int limit,
+                                    int offset, String cursor, String fields, String ifNoneMatch);
+
+    public Response getFeedArticles(String authHeader, int limit, int offset, String cursor, String fields,
+                                    String ifNoneMatch);
+
+    public Response getArticle(String authHeader, String slug, String ifNoneMatch, String ifModifiedSince);
+
+    public Response createArticle(String authHeader, JsonObject article);
+
+    public Response updateArticle(String authHeader, String slug, JsonObject article);
+
+    public Response deleteArticle(String authHeader, String slug);
+
+    public Response addComment(String authHeader, String slug, JsonObject comment);
+
+    public Response getComments(String authHeader, String slug, int limit, String cursor, String since,
+                                String ifNoneMatch);
+
+    public Response deleteComment(String authHeader, String slug, int commentId);
+
+    public Response favoriteArticle(String authHeader, String slug);
+
+    public Response unfavoriteArticle(String authHeader, String slug);
+
+    public Response getTags(int limit, String ifNoneMatch);
+
+}
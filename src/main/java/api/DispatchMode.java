@@ -0,0 +1,40 @@
+package api;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+
+/**
+ * The <code>api.dispatch.mode</code> {@link ApiClientController} dispatches with, checked once when the application
+ * starts.
+ */
+@ApplicationScoped
+public class DispatchMode {
+
+    private static final String IN_PROCESS = "in-process";
+    private static final String REST_CLIENT = "rest-client";
+
+    @Inject
+    @ConfigProperty(name = "api.dispatch.mode", defaultValue = IN_PROCESS)
+    private String mode;
+
+    /**
+     * Fails the deployment, rather than the first request, if the mode is unknown.
+     */
+    public void validate(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        if (!IN_PROCESS.equals(mode) && !REST_CLIENT.equals(mode)) {
+            throw new IllegalStateException("Unknown api.dispatch.mode: " + mode);
+        }
+    }
+
+    /**
+     * @return true to make https requests to the system, false to dispatch in-process
+     */
+    public boolean isRestClient() {
+        return REST_CLIENT.equals(mode);
+    }
+
+}
@@ -0,0 +1,191 @@
+package api;
+
+import api.rest.*;
+import org.eclipse.microprofile.jwt.Claim;
+import org.eclipse.microprofile.jwt.ClaimValue;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.json.JsonObject;
+import javax.ws.rs.core.Response;
+import java.util.Set;
+
+/**
+ * Dispatches requests straight to the system resources in the same JVM, avoiding a second https round trip, JAX-RS
+ * dispatch and JSON parse per request.
+ * <p>
+ * The resources see the caller's JWT of the current request, but <code>@RolesAllowed</code> is only enforced by the
+ * JAX-RS runtime, so the same check is repeated here before calling a protected resource method.
+ */
+@RequestScoped
+public class InProcessDispatcher implements ApiDispatcher {
+
+    private static final String USER_ROLE = "user";
+
+    @Inject
+    private LoginResource loginResource;
+
+    @Inject
+    private UserResource userResource;
+
+    @Inject
+    private ProfileResource profileResource;
+
+    @Inject
+    private ArticleResource articleResource;
+
+    @Inject
+    private TagResource tagResource;
+
+    @Inject
+    @Claim("groups")
+    private ClaimValue<Set<String>> currentUsersGroups;
+
+    @Override
+    public Response authentication(JsonObject user) {
+        return loginResource.authentication(user);
+    }
+
+    @Override
+    public Response registration(JsonObject user) {
+        return loginResource.registration(user);
+    }
+
+    @Override
+    public Response getCurrentUser(String authHeader) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return userResource.getCurrentUser(authHeader);
+    }
+
+    @Override
+    public Response updateUser(String authHeader, JsonObject user) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return userResource.updateUser(authHeader, user);
+    }
+
+    @Override
+    public Response getProfile(String authHeader, String username, String ifNoneMatch, String ifModifiedSince) {
+        return profileResource.getProfile(authHeader, username, ifNoneMatch, ifModifiedSince);
+    }
+
+    @Override
+    public Response followUser(String authHeader, String username) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return profileResource.followUser(authHeader, username);
+    }
+
+    @Override
+    public Response unfollowUser(String authHeader, String username) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return profileResource.unfollowUser(authHeader, username);
+    }
+
+    @Override
+    public Response getListArticles(String authHeader, String tag, String author, String favorited, int limit,
+                                    int offset, String cursor, String fields, String ifNoneMatch) {
+        return articleResource.getListArticles(authHeader, tag, author, favorited, limit, offset, cursor, fields,
+                ifNoneMatch);
+    }
+
+    @Override
+    public Response getFeedArticles(String authHeader, int limit, int offset, String cursor, String fields,
+                                    String ifNoneMatch) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.getFeedArticles(authHeader, limit, offset, cursor, fields, ifNoneMatch);
+    }
+
+    @Override
+    public Response getArticle(String authHeader, String slug, String ifNoneMatch, String ifModifiedSince) {
+        return articleResource.getArticle(authHeader, slug, ifNoneMatch, ifModifiedSince);
+    }
+
+    @Override
+    public Response createArticle(String authHeader, JsonObject article) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.createArticle(authHeader, article);
+    }
+
+    @Override
+    public Response updateArticle(String authHeader, String slug, JsonObject article) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.updateArticle(authHeader, slug, article);
+    }
+
+    @Override
+    public Response deleteArticle(String authHeader, String slug) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.deleteArticle(authHeader, slug);
+    }
+
+    @Override
+    public Response addComment(String authHeader, String slug, JsonObject comment) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.addComment(authHeader, slug, comment);
+    }
+
+    @Override
+    public Response getComments(String authHeader, String slug, int limit, String cursor, String since,
+                                String ifNoneMatch) {
+        return articleResource.getComments(authHeader, slug, limit, cursor, since, ifNoneMatch);
+    }
+
+    @Override
+    public Response deleteComment(String authHeader, String slug, int commentId) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.deleteComment(authHeader, slug, commentId);
+    }
+
+    @Override
+    public Response favoriteArticle(String authHeader, String slug) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.favoriteArticle(authHeader, slug);
+    }
+
+    @Override
+    public Response unfavoriteArticle(String authHeader, String slug) {
+        if (!isUser()) {
+            return unauthorized();
+        }
+        return articleResource.unfavoriteArticle(authHeader, slug);
+    }
+
+    @Override
+    public Response getTags(int limit, String ifNoneMatch) {
+        return tagResource.getTags(limit, ifNoneMatch);
+    }
+
+    /**
+     * @return true if the request carries a valid JWT in the "user" group.
+     */
+    private boolean isUser() {
+        Set<String> groups = currentUsersGroups.getValue();
+        return groups != null && groups.contains(USER_ROLE);
+    }
+
+    private Response unauthorized() {
+        return Response.status(Response.Status.UNAUTHORIZED).build();
+    }
+
+}
@@ -0,0 +1,143 @@
+package api;
+
+import org.eclipse.microprofile.rest.client.inject.RestClient;
+
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.json.JsonObject;
+import javax.ws.rs.core.Response;
+
+/**
+ * Dispatches requests over https to the system, at https://localhost:9443/system, using the MicroProfile RestClient.
+ * <p>
+ * Selected with <code>api.dispatch.mode=rest-client</code>, for deployments where the system runs on another node.
+ */
+@RequestScoped
+public class RestClientDispatcher implements ApiDispatcher {
+
+    @Inject
+    @RestClient
+    private ApiClient apiClient;
+
+    @Override
+    public Response authentication(JsonObject user) {
+        return Response.ok(apiClient.authentication(user)).build();
+    }
+
+    @Override
+    public Response registration(JsonObject user) {
+        return Response.ok(apiClient.registration(user)).build();
+    }
+
+    @Override
+    public Response getCurrentUser(String authHeader) {
+        return Response.ok(apiClient.getCurrentUser(authHeader)).build();
+    }
+
+    @Override
+    public Response updateUser(String authHeader, JsonObject user) {
+        return Response.ok(apiClient.updateUser(authHeader, user)).build();
+    }
+
+    @Override
+    public Response getProfile(String authHeader, String username, String ifNoneMatch, String ifModifiedSince) {
+        return relay(apiClient.getProfile(authHeader, username, ifNoneMatch, ifModifiedSince));
+    }
+
+    @Override
+    public Response followUser(String authHeader, String username) {
+        return Response.ok(apiClient.followUser(authHeader, username)).build();
+    }
+
+    @Override
+    public Response unfollowUser(String authHeader, String username) {
+        return Response.ok(apiClient.unfollowUser(authHeader, username)).build();
+    }
+
+    @Override
+    public Response getListArticles(String authHeader, String tag, String author, String favorited, int limit,
+                                    int offset, String cursor, String fields, String ifNoneMatch) {
+        return relay(apiClient.getListArticles(authHeader, tag, author, favorited, limit, offset, cursor, fields,
+                ifNoneMatch));
+    }
+
+    @Override
+    public Response getFeedArticles(String authHeader, int limit, int offset, String cursor, String fields,
+                                    String ifNoneMatch) {
+        return relay(apiClient.getFeedArticles(authHeader, limit, offset, cursor, fields, ifNoneMatch));
+    }
+
+    @Override
+    public Response getArticle(String authHeader, String slug, String ifNoneMatch, String ifModifiedSince) {
+        return relay(apiClient.getArticle(authHeader, slug, ifNoneMatch, ifModifiedSince));
+    }
+
+    @Override
+    public Response createArticle(String authHeader, JsonObject article) {
+        return Response.ok(apiClient.createArticle(authHeader, article)).build();
+    }
+
+    @Override
+    public Response updateArticle(String authHeader, String slug, JsonObject article) {
+        return Response.ok(apiClient.updateArticle(authHeader, slug, article)).build();
+    }
+
+    @Override
+    public Response deleteArticle(String authHeader, String slug) {
+        return Response.ok(apiClient.deleteArticle(authHeader, slug)).build();
+    }
+
+    @Override
+    public Response addComment(String authHeader, String slug, JsonObject comment) {
+        return Response.ok(apiClient.addComment(authHeader, slug, comment)).build();
+    }
+
+    @Override
+    public Response getComments(String authHeader, String slug, int limit, String cursor, String since,
+                                String ifNoneMatch) {
+        return relay(apiClient.getComments(authHeader, slug, limit, cursor, since, ifNoneMatch));
+    }
+
+    @Override
+    public Response deleteComment(String authHeader, String slug, int commentId) {
+        return Response.ok(apiClient.deleteComment(authHeader, slug, commentId)).build();
+    }
+
+    @Override
+    public Response favoriteArticle(String authHeader, String slug) {
+        return Response.ok(apiClient.favoriteArticle(authHeader, slug)).build();
+    }
+
+    @Override
+    public Response unfavoriteArticle(String authHeader, String slug) {
+        return Response.ok(apiClient.unfavoriteArticle(authHeader, slug)).build();
+    }
+
+    @Override
+    public Response getTags(int limit, String ifNoneMatch) {
+        return relay(apiClient.getTags(limit, ifNoneMatch));
+    }
+
+    /**
+     * Copies the status, validators and body of a response from the system, so conditional requests work end to end,
+     * then closes it to release its connection.
+     */
+    private Response relay(Response response) {
+        try {
+            Response.ResponseBuilder builder = Response.status(response.getStatus());
+            if (response.getEntityTag() != null) {
+                builder.tag(response.getEntityTag());
+            }
+            if (response.getLastModified() != null) {
+                builder.lastModified(response.getLastModified());
+            }
+            if (response.hasEntity()) {
+                builder.entity(response.readEntity(String.class));
+            }
+            return builder.build();
+        } finally {
+            response.close();
+        }
+    }
+
+}
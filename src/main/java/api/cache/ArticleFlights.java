@@ -0,0 +1,86 @@
+package api.cache;
+
+import api.events.ArticleEvent;
+import api.events.ProfileEvent;
+import api.json.ArticleFragment;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.annotation.Metric;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent reads of the same Article by slug, so when many requests ask for one Article at once it is
+ * loaded and encoded once, and every request shares the resulting ArticleFragment.
+ * <p>
+ * Only the fragment is shared, never an entity, as each request has its own persistence context. A committed change
+ * to the Article, or any author profile, stops later requests joining a flight that started before it.
+ */
+@ApplicationScoped
+public class ArticleFlights {
+
+    @Inject
+    @ConfigProperty(name = "api.flight.wait-millis", defaultValue = "250")
+    private long waitMillis;
+
+    @Inject
+    @Metric(name = "articleFlights.loads", absolute = true,
+            description = "Article reads that loaded the Article")
+    private Counter loads;
+
+    @Inject
+    @Metric(name = "articleFlights.joined", absolute = true,
+            description = "Article reads answered by a concurrent read of the same Article")
+    private Counter joined;
+
+    @Inject
+    @Metric(name = "articleFlights.duplicateLoads", absolute = true,
+            description = "Article reads that loaded the Article while a concurrent read of it was in flight, as that "
+                    + "read failed or took longer than api.flight.wait-millis")
+    private Counter duplicateLoads;
+
+    private SingleFlight<String, ArticleFragment> flights;
+
+    @PostConstruct
+    private void init() {
+        flights = new SingleFlight<>(waitMillis);
+    }
+
+    /**
+     * @param load loads and encodes the Article in the calling request. May return null if there is none.
+     */
+    public ArticleFragment read(String slug, Supplier<ArticleFragment> load) {
+        SingleFlight.Result<ArticleFragment> result = flights.get(slug, load);
+        switch (result.getOutcome()) {
+            case LOADED:
+                loads.inc();
+                break;
+            case JOINED:
+                joined.inc();
+                break;
+            default:
+                loads.inc();
+                duplicateLoads.inc();
+                break;
+        }
+        return result.getValue();
+    }
+
+    public void onArticleEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleEvent event) {
+        if (event.getType() != ArticleEvent.Type.CREATED) {
+            flights.forget(event.getSlug());
+        }
+    }
+
+    public void onProfileEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProfileEvent event) {
+        if (event.getType() == ProfileEvent.Type.UPDATED) {
+            flights.forgetAll();
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package api.cache;
+
+import api.events.ArticleEvent;
+import api.events.ProfileEvent;
+import api.hot.HotKeys;
+import api.json.ArticleFragment;
+import api.model.Article;
+import api.utils.ArticleFields;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Caches each recently read Article's pre-encoded JSON, so reads only write the viewer's flags rather than encoding the
+ * Article again.
+ * <p>
+ * A fragment is only used for the Article version and favoritesCount it was encoded from, so updating or favoriting
+ * an Article makes the next read encode it again. Favorites don't increment the version, so they never conflict with an
+ * edit. Deleted Articles are dropped, as are the Articles of an author who updates their profile. The author's version
+ * is checked too, so a fragment encoded from an author read before such an update is replaced by the next read.
+ * <p>
+ * Only the fragments of Articles HotKeys considers hot are kept. The rest are encoded for each read. Each selection of
+ * fields has its own fragment, keyed by the Article's id and the selection's mask.
+ */
+@ApplicationScoped
+public class ArticleFragmentCache {
+
+    @Inject
+    @ConfigProperty(name = "api.cache.fragments.size", defaultValue = "10000")
+    private int size;
+
+    @Inject
+    private HotKeys hotKeys;
+
+    private BoundedCache<Long, ArticleFragment> fragments;
+
+    // Counts profile updates, so a fragment encoded from a stale author isn't cached. Guarded by this.
+    private long generation;
+
+    @PostConstruct
+    private void init() {
+        fragments = new BoundedCache<>(size);
+    }
+
+    /**
+     * @param article an Article read in the current request, with its author available
+     */
+    public ArticleFragment get(Article article) {
+        return get(article, ArticleFields.ALL);
+    }
+
+    /**
+     * @param article an Article read in the current request, with at least the given fields loaded
+     */
+    public ArticleFragment get(Article article, ArticleFields fields) {
+        long key = (long) article.getId() << 32 | fields.getMask();
+        ArticleFragment fragment = fragments.get(key);
+        if (fragment != null && isOf(fragment, article)) {
+            return fragment;
+        }
+
+        long generation;
+        synchronized (this) {
+            generation = this.generation;
+        }
+        ArticleFragment encoded = ArticleFragment.of(article, fields);
+        if (!hotKeys.isHotArticle(article.getSlug())) {
+            return encoded;
+        }
+        synchronized (this) {
+            // Don't replace a newer copy read by a concurrent request
+            ArticleFragment current = fragments.get(key);
+            if ((current == null || isOlderThan(current, article)) && generation == this.generation) {
+                fragments.put(key, encoded);
+            }
+        }
+        return encoded;
+    }
+
+    public List<ArticleFragment> get(List<Article> articles, ArticleFields fields) {
+        List<ArticleFragment> result = new ArrayList<>(articles.size());
+        articles.forEach(article -> result.add(get(article, fields)));
+        return result;
+    }
+
+    public void onArticleEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleEvent event) {
+        if (event.getType() == ArticleEvent.Type.UPDATED || event.getType() == ArticleEvent.Type.DELETED) {
+            // A favorite only changes favoritesCount, which get() checks
+            fragments.invalidateValuesIf(fragment -> fragment.getArticleId() == event.getArticleId());
+        }
+    }
+
+    public synchronized void onProfileEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProfileEvent event) {
+        if (event.getType() == ProfileEvent.Type.UPDATED) {
+            generation++;
+            fragments.invalidateValuesIf(fragment -> fragment.getAuthorEmail().equals(event.getEmail()));
+        }
+    }
+
+    private static boolean isOf(ArticleFragment fragment, Article article) {
+        return fragment.getVersion() == article.getVersion()
+                && fragment.getFavoritesCount() == article.getFavoritesCount()
+                && fragment.getAuthorVersion() == article.getAuthor().getVersion();
+    }
+
+    /**
+     * @return true if the Article, and its author, are each at least as new as the fragment, and one is newer. Favorites
+     * change favoritesCount and changedAt, but not the version, so a copy of the same version is ordered by changedAt.
+     */
+    private static boolean isOlderThan(ArticleFragment fragment, Article article) {
+        int byArticle = fragment.getVersion() != article.getVersion()
+                ? Integer.compare(fragment.getVersion(), article.getVersion())
+                : fragment.getChangedAt().compareTo(article.getChangedAt());
+        int byAuthor = Integer.compare(fragment.getAuthorVersion(), article.getAuthor().getVersion());
+        return byArticle <= 0 && byAuthor <= 0 && (byArticle < 0 || byAuthor < 0);
+    }
+
+}
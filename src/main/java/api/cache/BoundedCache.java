@@ -0,0 +1,87 @@
+package api.cache;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+
+/**
+ * A thread safe, least recently used cache holding at most maxSize entries, each optionally expiring a fixed time
+ * after it was written.
+ */
+public class BoundedCache<K, V> {
+
+    private final long expireAfterWriteMillis;
+    private final LinkedHashMap<K, CachedValue<V>> entries; // guarded by this
+
+    /**
+     * @param maxSize                the number of entries above which the least recently used one is evicted
+     * @param expireAfterWriteMillis how long an entry can be read for after being put. 0 or less to never expire.
+     */
+    public BoundedCache(int maxSize, long expireAfterWriteMillis) {
+        this.expireAfterWriteMillis = expireAfterWriteMillis;
+        this.entries = new LinkedHashMap<K, CachedValue<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, CachedValue<V>> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public BoundedCache(int maxSize) {
+        this(maxSize, 0);
+    }
+
+    /**
+     * @return the cached value, or null if it is absent or has expired
+     */
+    public synchronized V get(K key) {
+        CachedValue<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (expireAfterWriteMillis > 0 && System.currentTimeMillis() - entry.writtenAt > expireAfterWriteMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value;
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new CachedValue<>(value));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void invalidateIf(Predicate<K> predicate) {
+        entries.keySet().removeIf(predicate);
+    }
+
+    public synchronized void invalidateValuesIf(Predicate<V> predicate) {
+        entries.values().removeIf(entry -> predicate.test(entry.value));
+    }
+
+    public synchronized void invalidateEntriesIf(BiPredicate<K, V> predicate) {
+        entries.entrySet().removeIf(entry -> predicate.test(entry.getKey(), entry.getValue().value));
+    }
+
+    public synchronized void invalidateAll() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private static class CachedValue<V> {
+        private final V value;
+        private final long writtenAt = System.currentTimeMillis();
+
+        private CachedValue(V value) {
+            this.value = value;
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package api.cache;
+
+import api.model.Article;
+
+import javax.ws.rs.core.EntityTag;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * An encoded anonymous list response held by ListResponseCache, with what it was read from, so it's only invalidated
+ * by the changes that could alter it.
+ */
+public class CachedList {
+
+    private final byte[] body;
+    private final EntityTag etag;
+    private final Date lastModified;
+    private final boolean cursorPage;
+    private final Set<Integer> articleIds = new HashSet<>();
+    private final Set<String> authorEmails = new HashSet<>();
+    private final LocalDateTime oldestCreatedAt; // of the page's last Article. null if the page is empty.
+    private final int oldestId;
+
+    /**
+     * @param articles   the Articles encoded in body, newest first, each with its author available
+     * @param cursorPage true if the page was read after a cursor rather than at an offset
+     */
+    public CachedList(byte[] body, EntityTag etag, Date lastModified, List<Article> articles, boolean cursorPage) {
+        this.body = body;
+        this.etag = etag;
+        this.lastModified = lastModified;
+        this.cursorPage = cursorPage;
+        for (Article article : articles) {
+            articleIds.add(article.getId());
+            authorEmails.add(article.getAuthor().getEmail());
+        }
+        Article oldest = articles.isEmpty() ? null : articles.get(articles.size() - 1);
+        this.oldestCreatedAt = oldest == null ? null : oldest.getCreatedAt();
+        this.oldestId = oldest == null ? 0 : oldest.getId();
+    }
+
+    public byte[] getBody() {
+        return body;
+    }
+
+    public EntityTag getEtag() {
+        return etag;
+    }
+
+    public Date getLastModified() {
+        return lastModified;
+    }
+
+    boolean isCursorPage() {
+        return cursorPage;
+    }
+
+    boolean contains(int articleId) {
+        return articleIds.contains(articleId);
+    }
+
+    boolean hasAuthor(String email) {
+        return authorEmails.contains(email);
+    }
+
+    boolean isEmpty() {
+        return articleIds.isEmpty();
+    }
+
+    /**
+     * @return true if the page ends with an Article older than the given one, in list order
+     */
+    boolean endsBefore(LocalDateTime createdAt, int id) {
+        if (oldestCreatedAt == null) {
+            return false;
+        }
+        int order = oldestCreatedAt.compareTo(createdAt);
+        return order < 0 || (order == 0 && oldestId < id);
+    }
+
+}
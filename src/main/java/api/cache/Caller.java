@@ -0,0 +1,58 @@
+package api.cache;
+
+import api.graph.FollowGraph;
+import api.model.Profile;
+
+/**
+ * An immutable snapshot of the authenticated user making a request: their identity, and who they follow.
+ * <p>
+ * Held by the CallerCache, so it can be shared between requests and threads. Writes that need a managed Profile
+ * should look it up, or reference it, by {@link #getEmail()}. Who they follow is answered by the FollowGraph, so it
+ * is always current.
+ */
+public class Caller {
+
+    private final String email;
+    private final String username;
+    private final String bio;
+    private final String image;
+    private final FollowGraph followGraph;
+
+    public Caller(String email, String username, String bio, String image, FollowGraph followGraph) {
+        this.email = email;
+        this.username = username;
+        this.bio = bio;
+        this.image = image;
+        this.followGraph = followGraph;
+    }
+
+    public static Caller of(Profile profile, FollowGraph followGraph) {
+        return new Caller(profile.getEmail(), profile.getUsername(), profile.getBio(), profile.getImage(),
+                followGraph);
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getBio() {
+        return bio;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public boolean isFollowing(Profile profile) {
+        return isFollowing(profile.getEmail());
+    }
+
+    public boolean isFollowing(String profileEmail) {
+        return followGraph.isFollowing(email, profileEmail);
+    }
+
+}
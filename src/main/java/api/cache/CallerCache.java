@@ -0,0 +1,104 @@
+package api.cache;
+
+import api.dao.ProfileDAO;
+import api.events.ProfileEvent;
+import api.graph.FollowGraph;
+import api.model.Profile;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caches the Caller for each JWT subject, shared by all resources, so identifying the user making a request doesn't
+ * need the database.
+ * <p>
+ * Entries expire after <code>api.cache.callers.ttl-seconds</code>, and are invalidated when the Profile is updated.
+ * Follows don't invalidate them, as who a Caller follows is answered by the FollowGraph.
+ */
+@ApplicationScoped
+public class CallerCache {
+
+    @Inject
+    private ProfileDAO profileDAO;
+
+    @Inject
+    private FollowGraph followGraph;
+
+    @Inject
+    @ConfigProperty(name = "api.cache.callers.size", defaultValue = "10000")
+    private int size;
+
+    @Inject
+    @ConfigProperty(name = "api.cache.callers.ttl-seconds", defaultValue = "300")
+    private long ttlSeconds;
+
+    private BoundedCache<Key, Caller> callers;
+
+    @PostConstruct
+    private void init() {
+        callers = new BoundedCache<>(size, TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+
+    /**
+     * @param username the JWT's sub claim
+     * @param email    the JWT's upn claim
+     * @return the Caller for the JWT. null if the request isn't authenticated, or the Profile no longer exists.
+     */
+    public Caller getCaller(String username, String email) {
+        if (email == null) {
+            return null;
+        }
+        Key key = new Key(username, email);
+        Caller caller = callers.get(key);
+        if (caller == null) {
+            Profile profile = profileDAO.readProfile(email);
+            if (profile == null) {
+                return null;
+            }
+            caller = Caller.of(profile, followGraph);
+            callers.put(key, caller);
+        }
+        return caller;
+    }
+
+    public void invalidate(String email) {
+        callers.invalidateIf(key -> key.email.equals(email));
+    }
+
+    public void onProfileEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProfileEvent event) {
+        if (event.getType() == ProfileEvent.Type.UPDATED) {
+            invalidate(event.getEmail());
+        }
+    }
+
+    private static class Key {
+        private final String username;
+        private final String email;
+
+        private Key(String username, String email) {
+            this.username = username;
+            this.email = email;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return email.equals(other.email) && Objects.equals(username, other.username);
+        }
+
+        @Override
+        public int hashCode() {
+            return email.hashCode();
+        }
+    }
+
+}
@@ -0,0 +1,163 @@
+package api.cache;
+
+import api.events.ArticleEvent;
+import api.events.ProfileEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+import org.eclipse.microprofile.metrics.Counter;
+import org.eclipse.microprofile.metrics.annotation.Metric;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.Objects;
+import java.util.function.Supplier;
+
+/**
+ * Caches the encoded responses of anonymous article list requests, keyed by their normalized query parameters, so a
+ * repeated request is answered from bytes without reading anything through JPA.
+ * <p>
+ * Anonymous responses don't depend on the caller, so one copy serves everyone. Each committed change only drops the
+ * lists it could alter. A new Article only reaches offset pages its filter matches, since cursor pages are older than
+ * it. An update or favorite drops the lists showing that Article, and a favorite also drops lists filtered by the
+ * Profile that favorited it. A deletion also drops the offset pages it would shift.
+ */
+@ApplicationScoped
+public class ListResponseCache {
+
+    @Inject
+    @ConfigProperty(name = "api.cache.lists.size", defaultValue = "1000")
+    private int size;
+
+    @Inject
+    @Metric(name = "listResponseCache.hits", absolute = true,
+            description = "Anonymous article list requests answered from ListResponseCache")
+    private Counter hits;
+
+    @Inject
+    @Metric(name = "listResponseCache.misses", absolute = true,
+            description = "Anonymous article list requests read from the database and added to ListResponseCache")
+    private Counter misses;
+
+    private BoundedCache<Key, CachedList> lists;
+
+    // Counts changes, so a list read before one commits isn't cached. Guarded by this.
+    private long generation;
+
+    @PostConstruct
+    private void init() {
+        lists = new BoundedCache<>(size);
+    }
+
+    /**
+     * @param read reads and encodes the list, if it isn't cached
+     */
+    public CachedList get(Key key, Supplier<CachedList> read) {
+        CachedList list = lists.get(key);
+        if (list != null) {
+            hits.inc();
+            return list;
+        }
+        misses.inc();
+
+        long generation;
+        synchronized (this) {
+            generation = this.generation;
+        }
+        list = read.get();
+        synchronized (this) {
+            if (generation == this.generation) {
+                lists.put(key, list);
+            }
+        }
+        return list;
+    }
+
+    public synchronized void onArticleEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleEvent event) {
+        generation++;
+        int articleId = event.getArticleId();
+        switch (event.getType()) {
+            case CREATED:
+                // It has no favorites yet, and is newer than any cursor
+                lists.invalidateEntriesIf((key, list) -> !list.isCursorPage() && key.favorited == null
+                        && matches(key, list, event));
+                break;
+            case DELETED:
+                lists.invalidateEntriesIf((key, list) -> list.contains(articleId) || (!list.isCursorPage()
+                        && matches(key, list, event) && list.endsBefore(event.getCreatedAt(), articleId)));
+                break;
+            case FAVORITED:
+            case UNFAVORITED:
+                lists.invalidateEntriesIf((key, list) -> list.contains(articleId)
+                        || event.getFavoritedBy().equals(key.favorited));
+                break;
+            default:
+                lists.invalidateValuesIf(list -> list.contains(articleId));
+                break;
+        }
+    }
+
+    public synchronized void onProfileEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProfileEvent event) {
+        if (event.getType() == ProfileEvent.Type.UPDATED) {
+            generation++;
+            // The username may have changed, so any list filtered by a username may now be wrong
+            lists.invalidateEntriesIf((key, list) -> list.hasAuthor(event.getEmail()) || key.author != null
+                    || key.favorited != null);
+        }
+    }
+
+    /**
+     * @return true if the changed Article may belong in the list, ignoring any favorited filter. An empty list filtered
+     * by author is assumed to match, as the author's username isn't known.
+     */
+    private static boolean matches(Key key, CachedList list, ArticleEvent event) {
+        return (key.tag == null || event.getTags().contains(key.tag))
+                && (key.author == null || list.isEmpty() || list.hasAuthor(event.getAuthorEmail()));
+    }
+
+    /**
+     * The query parameters of an anonymous list request. An empty cursor is the same as none, and offset is ignored
+     * when a cursor is given, as they are by ArticleCursor and ArticleDAO.
+     */
+    public static class Key {
+        private final String tag;
+        private final String author;
+        private final String favorited;
+        private final int limit;
+        private final int offset;
+        private final String cursor;
+        private final int fields;
+
+        /**
+         * @param fields the mask of the selected ArticleFields
+         */
+        public Key(String tag, String author, String favorited, int limit, int offset, String cursor, int fields) {
+            this.tag = tag;
+            this.author = author;
+            this.favorited = favorited;
+            this.cursor = cursor == null || cursor.isEmpty() ? null : cursor;
+            this.limit = limit;
+            this.offset = this.cursor == null ? offset : 0;
+            this.fields = fields;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return limit == other.limit && offset == other.offset && fields == other.fields
+                    && Objects.equals(tag, other.tag)
+                    && Objects.equals(author, other.author) && Objects.equals(favorited, other.favorited)
+                    && Objects.equals(cursor, other.cursor);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(tag, author, favorited, limit, offset, cursor, fields);
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package api.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent loads of the same key: the first caller loads it, and callers arriving while that load is in
+ * flight wait for its result rather than loading it again.
+ * <p>
+ * Flights are held in a ConcurrentHashMap, whose per-bin locks are only held to start or end a flight, never during
+ * a load, so loads of different keys never wait for each other. A caller waits at most waitMillis for another's
+ * load, then loads the key itself.
+ */
+public class SingleFlight<K, V> {
+
+    public enum Outcome {
+        LOADED, // this caller loaded the value
+        JOINED, // the value was loaded by a concurrent caller
+        LOADED_AGAIN // a concurrent caller was loading it, but failed or took longer than waitMillis
+    }
+
+    private final ConcurrentMap<K, CompletableFuture<V>> flights = new ConcurrentHashMap<>();
+    private final long waitMillis;
+
+    public SingleFlight(long waitMillis) {
+        this.waitMillis = waitMillis;
+    }
+
+    public Result<V> get(K key, Supplier<V> load) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> current = flights.putIfAbsent(key, flight);
+        if (current == null) {
+            try {
+                V value = load.get();
+                flight.complete(value);
+                return new Result<>(value, Outcome.LOADED);
+            } catch (RuntimeException | Error e) {
+                flight.completeExceptionally(e);
+                throw e;
+            } finally {
+                flights.remove(key, flight);
+            }
+        }
+
+        try {
+            return new Result<>(current.get(waitMillis, TimeUnit.MILLISECONDS), Outcome.JOINED);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            // Load it independently, below
+        }
+        return new Result<>(load.get(), Outcome.LOADED_AGAIN);
+    }
+
+    /**
+     * Stops callers joining the key's current flight, so they load a value that includes a change committed since it
+     * started. Callers already waiting still get its result.
+     */
+    public void forget(K key) {
+        flights.remove(key);
+    }
+
+    public void forgetAll() {
+        flights.clear();
+    }
+
+    public static class Result<V> {
+        private final V value;
+        private final Outcome outcome;
+
+        private Result(V value, Outcome outcome) {
+            this.value = value;
+            this.outcome = outcome;
+        }
+
+        public V getValue() {
+            return value;
+        }
+
+        public Outcome getOutcome() {
+            return outcome;
+        }
+    }
+
+}
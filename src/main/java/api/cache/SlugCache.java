@@ -0,0 +1,61 @@
+package api.cache;
+
+import api.events.ArticleEvent;
+import api.hot.HotKeys;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+
+/**
+ * Maps recently requested slugs to their Article's id, so resolving a slug is a primary key lookup.
+ * <p>
+ * A slug stops mapping to its Article when the Article's title is changed or it is deleted. ArticleDAO also checks
+ * the slug of the Article it finds, so an entry is never trusted between the commit and the event arriving.
+ * <p>
+ * Only slugs HotKeys considers hot are cached, so the long tail doesn't evict them.
+ */
+@ApplicationScoped
+public class SlugCache {
+
+    @Inject
+    @ConfigProperty(name = "api.cache.slugs.size", defaultValue = "10000")
+    private int size;
+
+    @Inject
+    private HotKeys hotKeys;
+
+    private BoundedCache<String, Integer> ids;
+
+    @PostConstruct
+    private void init() {
+        ids = new BoundedCache<>(size);
+    }
+
+    /**
+     * @return the id of the Article with the given slug, or null if it isn't cached
+     */
+    public Integer get(String slug) {
+        return ids.get(slug);
+    }
+
+    public void put(String slug, int articleId) {
+        if (hotKeys.isHotArticle(slug)) {
+            ids.put(slug, articleId);
+        }
+    }
+
+    public void invalidate(String slug) {
+        ids.invalidate(slug);
+    }
+
+    public void onArticleEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleEvent event) {
+        if (event.getType() == ArticleEvent.Type.UPDATED || event.getType() == ArticleEvent.Type.DELETED) {
+            ids.invalidate(event.getSlug());
+        }
+    }
+
+}
@@ -0,0 +1,177 @@
+package api.cache;
+
+import api.dao.TagDAO;
+import api.events.ArticleEvent;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.context.control.RequestContextController;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * The tags, ranked by the number of Articles using them, shared by all requests.
+ * <p>
+ * Usage counts are read from the database once, then kept up to date from committed ArticleEvents. The read doesn't
+ * hold the lock the observer takes, so committing writes never wait for it. Events observed while it runs are
+ * recorded and replayed onto its counts. One whose commit the read already saw is then counted twice, so the counts
+ * are read again in the background every <code>api.cache.tags.recount-seconds</code> to undo any such drift. The
+ * ranking is rebuilt on the first read after a change.
+ */
+@ApplicationScoped
+public class TagCache {
+
+    private static final Logger LOGGER = Logger.getLogger(TagCache.class.getName());
+
+    @Resource
+    private ManagedScheduledExecutorService executor;
+
+    @Inject
+    private RequestContextController requestContext;
+
+    @Inject
+    private TagDAO tagDAO;
+
+    @Inject
+    @ConfigProperty(name = "api.cache.tags.recount-seconds", defaultValue = "300")
+    private long recountSeconds;
+
+    private final Object countLock = new Object(); // held for a whole read of the counts, so only one runs at a time
+
+    private final Map<String, Integer> usage = new HashMap<>(); // guarded by this
+    private List<ArticleEvent> observedDuringCount; // guarded by this. null when no read is running.
+    private volatile boolean loaded;
+
+    private volatile List<String> ranked; // null when a change hasn't been ranked yet
+
+    private ScheduledFuture<?> schedule;
+
+    public void start(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        schedule = executor.scheduleWithFixedDelay(this::recount, recountSeconds, recountSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    private void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+    }
+
+    /**
+     * @param limit the maximum number of tags to return. 0 or less for all of them.
+     * @return the tag names, most used first
+     */
+    public List<String> getTags(int limit) {
+        List<String> ranked = this.ranked;
+        if (ranked == null) {
+            ranked = rank();
+        }
+        return limit > 0 && limit < ranked.size() ? ranked.subList(0, limit) : ranked;
+    }
+
+    private List<String> rank() {
+        if (!loaded) {
+            synchronized (countLock) {
+                if (!loaded) {
+                    count(); // On the request thread, as there is nothing to answer with until it's done
+                }
+            }
+        }
+        synchronized (this) {
+            if (ranked == null) {
+                List<String> tags = new ArrayList<>(usage.keySet());
+                tags.sort(Comparator.comparing((String tag) -> usage.get(tag)).reversed()
+                        .thenComparing(Comparator.naturalOrder()));
+                ranked = Collections.unmodifiableList(tags);
+            }
+            return ranked;
+        }
+    }
+
+    /**
+     * Reads the counts again, if they have been read before. Runs on the executor.
+     */
+    public void recount() {
+        if (!loaded) {
+            return; // The first read will count everything
+        }
+        // TagDAO is request scoped, and a scheduled task has no request
+        requestContext.activate();
+        try {
+            synchronized (countLock) {
+                count();
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule running, and the counts as they are, until the next run
+            LOGGER.log(Level.WARNING, "Recounting tag usage failed", e);
+        } finally {
+            requestContext.deactivate();
+        }
+    }
+
+    /**
+     * Reads the counts without holding this, then replaces the current ones with them and the events observed
+     * meanwhile. Callers hold countLock.
+     */
+    private void count() {
+        synchronized (this) {
+            observedDuringCount = new ArrayList<>();
+        }
+        Map<String, Integer> counted = null;
+        try {
+            counted = tagDAO.readTagUsage();
+        } finally {
+            synchronized (this) {
+                if (counted != null) {
+                    usage.clear();
+                    usage.putAll(counted);
+                    observedDuringCount.forEach(this::apply);
+                    loaded = true;
+                    ranked = null;
+                }
+                observedDuringCount = null;
+            }
+        }
+    }
+
+    public synchronized void onArticleEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleEvent event) {
+        if (observedDuringCount != null) {
+            observedDuringCount.add(event);
+        }
+        if (loaded) {
+            apply(event);
+        }
+    }
+
+    private void apply(ArticleEvent event) {
+        int delta;
+        switch (event.getType()) {
+            case CREATED:
+                delta = 1;
+                break;
+            case DELETED:
+                delta = -1;
+                break;
+            default:
+                return;
+        }
+        event.getTags().forEach(tag -> usage.merge(tag, delta, Integer::sum));
+        ranked = null;
+    }
+
+}
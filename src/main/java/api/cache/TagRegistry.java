@@ -0,0 +1,50 @@
+package api.cache;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The names of the Tags known to exist in the database, shared by all requests.
+ * <p>
+ * Tags are never deleted, so once a name has been read or created it can be referenced without another lookup. Names
+ * are interned, so every Article using a tag shares one String instance.
+ */
+@ApplicationScoped
+public class TagRegistry {
+
+    private final ConcurrentHashMap<String, String> knownTags = new ConcurrentHashMap<>();
+
+    /**
+     * @return the names out of tags that aren't known to exist yet, in their original order
+     */
+    public Set<String> unknown(Collection<String> tags) {
+        Set<String> unknown = new LinkedHashSet<>();
+        tags.forEach(tag -> {
+            if (!knownTags.containsKey(tag)) {
+                unknown.add(tag);
+            }
+        });
+        return unknown;
+    }
+
+    /**
+     * Records that the tag exists in the database.
+     *
+     * @return the canonical instance of the tag's name
+     */
+    public String register(String tag) {
+        String existing = knownTags.putIfAbsent(tag, tag);
+        return existing == null ? tag : existing;
+    }
+
+    /**
+     * @return the canonical instance of the tag's name, or the name itself if it isn't known yet
+     */
+    public String intern(String tag) {
+        return knownTags.getOrDefault(tag, tag);
+    }
+
+}
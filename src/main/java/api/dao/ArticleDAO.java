@@ -1,11 +1,24 @@
 package api.dao;
 
+import api.cache.SlugCache;
 import api.model.Article;
+import api.utils.ArticleCursor;
+import api.utils.ArticleFields;
 
 import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.persistence.TypedQuery;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @RequestScoped
 public class ArticleDAO {
@@ -13,6 +26,9 @@ public class ArticleDAO {
     @PersistenceContext(name = "jpa-unit")
     private EntityManager em;
 
+    @Inject
+    private SlugCache slugCache;
+
     public void createArticle(Article article) {
         em.persist(article);
     }
@@ -21,10 +37,36 @@ public class ArticleDAO {
         return em.find(Article.class, id);
     }
 
+    /**
+     * Resolves the slug through the SlugCache when possible, so only the first lookup of a slug runs a query.
+     *
+     * @return the Article with the slug. null if there is none, or it has been deleted.
+     */
     public Article readArticleBySlug(String slug) {
-        return em.createNamedQuery("Article.findArticleBySlug", Article.class)
+        Integer id = slugCache.get(slug);
+        if (id != null) {
+            Article article = em.find(Article.class, id);
+            if (article != null && !article.isDeleted() && article.getSlug().equals(slug)) {
+                return article;
+            }
+            slugCache.invalidate(slug);
+        }
+
+        List<Article> articles = em.createNamedQuery("Article.findArticleBySlug", Article.class)
                 .setParameter("slug", slug)
-                .getSingleResult();
+                .getResultList();
+        if (articles.isEmpty()) {
+            return null;
+        }
+        slugCache.put(slug, articles.get(0).getId());
+        return articles.get(0);
+    }
+
+    /**
+     * Reads the Article's columns again, to see a change committed by another transaction.
+     */
+    public void refreshArticle(Article article) {
+        em.refresh(article);
     }
 
     public void updateArticle(Article article) {
@@ -35,24 +77,265 @@ public class ArticleDAO {
         em.remove(article);
     }
 
+    /**
+     * @return the ids of up to limit deleted Articles that haven't been purged yet, longest deleted first
+     */
+    public List<Integer> readTombstoneIds(int limit) {
+        return em.createNamedQuery("Article.findTombstoneIds", Integer.class)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Deletes up to batchSize of a deleted Article's favorite rows, in its own transaction.
+     *
+     * @return the number of rows deleted. Less than batchSize once none are left.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int purgeFavorites(int articleId, int batchSize) {
+        List<?> profiles = em.createNamedQuery("Article.findFavoriteProfiles")
+                .setParameter(1, articleId)
+                .setMaxResults(batchSize)
+                .getResultList();
+        if (profiles.isEmpty()) {
+            return 0;
+        }
+        StringBuilder in = new StringBuilder();
+        for (int i = 2; i <= profiles.size() + 1; i++) {
+            in.append(i == 2 ? "?" : ", ?").append(i);
+        }
+        Query delete = em.createNativeQuery(""
+                + "DELETE FROM articleFavorites WHERE favoriteArticle = ?1 AND favoriteProfile IN (" + in + ")");
+        delete.setParameter(1, articleId);
+        int position = 2;
+        for (Object profile : profiles) {
+            delete.setParameter(position++, profile);
+        }
+        return delete.executeUpdate();
+    }
+
+    /**
+     * Deletes a deleted Article's tag links and then the Article itself, in its own transaction. Its Comments and
+     * favorites must already have been purged.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void purgeArticle(int articleId) {
+        Article article = em.find(Article.class, articleId);
+        if (article == null || !article.isDeleted()) {
+            return;
+        }
+        em.createNamedQuery("Article.deleteTagLinks")
+                .setParameter(1, articleId)
+                .executeUpdate();
+        em.createNamedQuery("Article.purgeTombstone")
+                .setParameter("id", articleId)
+                .executeUpdate();
+    }
+
+    /**
+     * Inserts the single favorite row, without loading the Article's favoritedBy collection, and adds it to the
+     * Article's favoritesCount. Does nothing if the Profile has already favorited the Article.
+     * <p>
+     * Runs in its own short transaction, so an identical favorite committed concurrently fails only this insert, not
+     * the caller's transaction. The caller's copy of the Article is left as it was.
+     *
+     * @return true if the favorite was added
+     * @throws javax.persistence.PersistenceException for which DuplicateKeys.isDuplicateKey is true if a concurrent
+     *                                                request added the same favorite first
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public boolean addFavorite(int articleId, String email) {
+        boolean added = em.createNamedQuery("Article.insertFavorite")
+                .setParameter(1, articleId)
+                .setParameter(2, email)
+                .executeUpdate() == 1;
+        if (added) {
+            em.createNamedQuery("Article.updateFavoritesCount")
+                    .setParameter("delta", 1)
+                    .setParameter("changedAt", LocalDateTime.now())
+                    .setParameter("id", articleId)
+                    .executeUpdate();
+        }
+        return added;
+    }
+
+    /**
+     * Deletes the single favorite row, without loading the Article's favoritedBy collection.
+     *
+     * @return true if the Profile had favorited the Article
+     */
+    public boolean removeFavorite(Article article, String email) {
+        return em.createNamedQuery("Article.deleteFavorite")
+                .setParameter(1, article.getId())
+                .setParameter(2, email)
+                .executeUpdate() == 1;
+    }
+
+    /**
+     * Atomically adds delta to the Article's favoritesCount in the database, then refreshes the given Article.
+     */
+    public void updateFavoritesCount(Article article, int delta) {
+        em.createNamedQuery("Article.updateFavoritesCount")
+                .setParameter("delta", delta)
+                .setParameter("changedAt", LocalDateTime.now())
+                .setParameter("id", article.getId())
+                .executeUpdate();
+        em.refresh(article);
+    }
+
+    /**
+     * @return the ids, out of articleIds, of the Articles favorited by the Profile with the given email
+     */
+    public Set<Integer> readFavoritedArticleIds(String email, Collection<Integer> articleIds) {
+        if (articleIds.isEmpty()) {
+            return new HashSet<>();
+        }
+        return new HashSet<>(em.createNamedQuery("Article.findFavoritedArticleIds", Integer.class)
+                .setParameter("email", email)
+                .setParameter("ids", articleIds)
+                .getResultList());
+    }
+
+    public boolean isFavoritedBy(Article article, String email) {
+        return isFavoritedBy(article.getId(), email);
+    }
+
+    public boolean isFavoritedBy(int articleId, String email) {
+        return !readFavoritedArticleIds(email, Collections.singleton(articleId)).isEmpty();
+    }
+
+    /**
+     * Reads only what decides whether a client's copy of an Article is current, so a conditional request can be
+     * answered without loading the Article, its author or its tags.
+     *
+     * @return the Article's id, version, favoritesCount and changedAt, then its author's email, version and updatedAt.
+     * null if there is no Article with the slug.
+     */
+    public Object[] readArticleValidators(String slug) {
+        List<Object[]> validators = em.createNamedQuery("Article.findValidators", Object[].class)
+                .setParameter("slug", slug)
+                .getResultList();
+        return validators.isEmpty() ? null : validators.get(0);
+    }
+
     public List<Article> readAllArticles() {
         return em.createNamedQuery("Article.findAll", Article.class).getResultList();
     }
 
-    public List<Article> readListArticles(String tag, String author, String favoritedBy, int limit, int offset) {
-        return em.createNamedQuery("Article.findListArticles", Article.class)
-                .setParameter("tag", tag)
-                .setParameter("author", author)
-                .setParameter("favorited", favoritedBy)
-                .setFirstResult(offset)
+    /**
+     * Reads a page of Articles, newest first, matching every filter that isn't null.
+     *
+     * @param cursor if not null, the page starts after the cursor's Article and offset is ignored
+     */
+    public List<Article> readListArticles(String tag, String author, String favoritedBy, int limit, int offset,
+                                          ArticleCursor cursor, ArticleFields fields) {
+        int shape = ArticleListQueries.shape(tag, author, favoritedBy, cursor != null);
+        TypedQuery<Article> query = em.createNamedQuery(ArticleListQueries.name(em, shape), Article.class);
+        if (ArticleListQueries.hasTag(shape)) {
+            query.setParameter("tag", tag);
+        }
+        if (ArticleListQueries.hasAuthor(shape)) {
+            query.setParameter("author", author);
+        }
+        if (ArticleListQueries.hasFavorited(shape)) {
+            query.setParameter("favorited", favoritedBy);
+        }
+        if (ArticleListQueries.hasCursor(shape)) {
+            query.setParameter("createdAt", cursor.getCreatedAt())
+                    .setParameter("id", cursor.getId());
+        } else {
+            query.setFirstResult(offset);
+        }
+        return withFetchGroup(query, fields)
                 .setMaxResults(limit)
                 .getResultList();
     }
 
-    public List<Article> readFeedArticles(String requestedBy) {
-        return em.createNamedQuery("Article.findFeedArticles", Article.class)
+    /**
+     * Reads a page of the Articles written by the authors requestedBy follows, newest first.
+     *
+     * @param cursor if not null, the page starts after the cursor's Article and offset is ignored
+     */
+    public List<Article> readFeedArticles(String requestedBy, int limit, int offset, ArticleCursor cursor,
+                                          ArticleFields fields) {
+        if (cursor != null) {
+            return withFetchGroup(em.createNamedQuery("Article.findFeedArticlesBefore", Article.class), fields)
+                    .setParameter("requestedBy", requestedBy)
+                    .setParameter("createdAt", cursor.getCreatedAt())
+                    .setParameter("id", cursor.getId())
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        return withFetchGroup(em.createNamedQuery("Article.findFeedArticles", Article.class), fields)
                 .setParameter("requestedBy", requestedBy)
+                .setFirstResult(offset)
+                .setMaxResults(limit)
                 .getResultList();
     }
 
+    /**
+     * @return the (createdAt, id) of the newest Articles by any of the Profiles with the given emails, newest first
+     */
+    public List<Object[]> readTimelineEntries(Collection<String> authorEmails, int limit) {
+        if (authorEmails.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return em.createNamedQuery("Article.findTimelineEntries", Object[].class)
+                .setParameter("authors", authorEmails)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * @return the Articles that still exist out of the given ids, newest first
+     */
+    public List<Article> readArticles(Collection<Integer> ids, ArticleFields fields) {
+        if (ids.isEmpty()) {
+            return new ArrayList<>();
+        }
+        return withFetchGroup(em.createNamedQuery("Article.findArticlesByIds", Article.class), fields)
+                .setParameter("ids", ids)
+                .getResultList();
+    }
+
+    /**
+     * @param cursor if not null, only Articles after the cursor's Article are read
+     * @return the newest Articles by any of the Profiles with the given emails
+     */
+    public List<Article> readArticlesByAuthors(Collection<String> emails, int limit, ArticleCursor cursor,
+                                               ArticleFields fields) {
+        if (cursor != null) {
+            return withFetchGroup(em.createNamedQuery("Article.findArticlesByAuthorsBefore", Article.class), fields)
+                    .setParameter("authors", emails)
+                    .setParameter("createdAt", cursor.getCreatedAt())
+                    .setParameter("id", cursor.getId())
+                    .setMaxResults(limit)
+                    .getResultList();
+        }
+        return withFetchGroup(em.createNamedQuery("Article.findArticlesByAuthors", Article.class), fields)
+                .setParameter("authors", emails)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    /**
+     * Reads only the selected fields' columns, so a list that leaves out the body never reads it, and batch fetches
+     * the authors and, if selected, the tags of every Article in the page in one query each.
+     * <p>
+     * Lists are only ever written, never updated, so the Articles are read-only: they aren't registered with the
+     * transaction's unit of work or checked for changes at commit.
+     */
+    private TypedQuery<Article> withFetchGroup(TypedQuery<Article> query, ArticleFields fields) {
+        query.setHint("eclipselink.read-only", "true");
+        for (String attribute : fields.getAttributes()) {
+            query.setHint("eclipselink.fetch-group.attribute", attribute);
+        }
+        query.setHint("eclipselink.batch.type", "IN");
+        query.setHint("eclipselink.batch", "a.author");
+        if (fields.has(ArticleFields.Field.TAG_LIST)) {
+            query.setHint("eclipselink.batch", "a.tagList");
+        }
+        return query;
+    }
+
 }
@@ -0,0 +1,90 @@
+package api.dao;
+
+import api.model.Article;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Builds the list Articles query from only the filters a request supplies, so each join and predicate is one the
+ * database can use an index for: a tag filter joins articleTags through tagNameIndex, a favorited filter joins
+ * articleFavorites through favoriteProfileIndex, and an unfiltered list reads articleCreatedAtIndex in order.
+ * <p>
+ * Each filter only ever matches one joined row per Article, so no variant needs DISTINCT. There are sixteen shapes,
+ * and each is registered as a named query the first time it is used, so it is parsed and compiled once.
+ */
+final class ArticleListQueries {
+
+    private static final int TAG = 1;
+    private static final int AUTHOR = 2;
+    private static final int FAVORITED = 4;
+    private static final int CURSOR = 8;
+
+    private static final ConcurrentMap<Integer, String> NAMES = new ConcurrentHashMap<>();
+
+    private ArticleListQueries() {
+    }
+
+    /**
+     * @return the bits of the filters that are given. A blank filter is still given, and matches nothing.
+     */
+    static int shape(String tag, String author, String favoritedBy, boolean cursor) {
+        return (tag != null ? TAG : 0)
+                | (author != null ? AUTHOR : 0)
+                | (favoritedBy != null ? FAVORITED : 0)
+                | (cursor ? CURSOR : 0);
+    }
+
+    static boolean hasTag(int shape) {
+        return (shape & TAG) != 0;
+    }
+
+    static boolean hasAuthor(int shape) {
+        return (shape & AUTHOR) != 0;
+    }
+
+    static boolean hasFavorited(int shape) {
+        return (shape & FAVORITED) != 0;
+    }
+
+    static boolean hasCursor(int shape) {
+        return (shape & CURSOR) != 0;
+    }
+
+    /**
+     * @return the name of the shape's named query, registering it with em's factory if it hasn't been yet
+     */
+    static String name(EntityManager em, int shape) {
+        return NAMES.computeIfAbsent(shape, key -> {
+            String name = "Article.findListArticles." + key;
+            em.getEntityManagerFactory().addNamedQuery(name, em.createQuery(jpql(key), Article.class));
+            return name;
+        });
+    }
+
+    static String jpql(int shape) {
+        StringBuilder query = new StringBuilder("SELECT a FROM Article a ");
+        if (hasTag(shape)) {
+            query.append("JOIN a.tagList t ");
+        }
+        if (hasFavorited(shape)) {
+            query.append("JOIN a.favoritedBy f ");
+        }
+        query.append("WHERE a.deletedAt IS NULL ");
+        if (hasTag(shape)) {
+            query.append("AND t.tag = :tag ");
+        }
+        if (hasAuthor(shape)) {
+            query.append("AND a.author.username = :author ");
+        }
+        if (hasFavorited(shape)) {
+            query.append("AND f.username = :favorited ");
+        }
+        if (hasCursor(shape)) {
+            query.append("AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) ");
+        }
+        return query.append("ORDER BY a.createdAt desc, a.id desc").toString();
+    }
+
+}
@@ -1,10 +1,12 @@
 package api.dao;
 
+import api.model.Article;
 import api.model.Comment;
 
 import javax.enterprise.context.RequestScoped;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
 import java.util.List;
 
 @RequestScoped
@@ -29,6 +31,39 @@ public class CommentDAO {
         em.remove(comment);
     }
 
+    /**
+     * Reads only what decides whether a client's copy of the Article's Comments is current. Any Comment added or
+     * deleted changes the count or the sum of ids, and any change to an author's profile changes the sum of versions.
+     *
+     * @return the Article's Comment count, largest id, sum of ids, sum of their authors' versions, newest createdAt
+     * and newest author updatedAt
+     */
+    public Object[] readCommentValidators(Article article) {
+        return em.createNamedQuery("Comment.findValidators", Object[].class)
+                .setParameter("article", article)
+                .getSingleResult();
+    }
+
+    /**
+     * Deletes up to batchSize of the Article's Comments with one statement, without loading them, in its own
+     * transaction.
+     *
+     * @return the number of Comments deleted. Less than batchSize once none are left.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public int purgeArticleComments(int articleId, int batchSize) {
+        List<Integer> ids = em.createNamedQuery("Comment.findArticleCommentIds", Integer.class)
+                .setParameter("articleId", articleId)
+                .setMaxResults(batchSize)
+                .getResultList();
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return em.createNamedQuery("Comment.deleteComments")
+                .setParameter("ids", ids)
+                .executeUpdate();
+    }
+
     public List<Comment> readAllComments() {
         return em.createNamedQuery("Comment.findAll", Comment.class).getResultList();
     }
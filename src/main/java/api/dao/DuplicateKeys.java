@@ -0,0 +1,28 @@
+package api.dao;
+
+import java.sql.SQLException;
+
+/**
+ * Recognises a unique constraint violation, so an insert that lost a race with an identical concurrent insert can be
+ * treated as having found the row already there.
+ */
+public final class DuplicateKeys {
+
+    private static final String UNIQUE_VIOLATION = "23505"; // The SQL standard's SQLState, used by Derby
+
+    private DuplicateKeys() {
+    }
+
+    /**
+     * @return true if the exception was caused by inserting a row that violates a unique constraint
+     */
+    public static boolean isDuplicateKey(Throwable e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && UNIQUE_VIOLATION.equals(((SQLException) cause).getSQLState())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
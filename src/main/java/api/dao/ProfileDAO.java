@@ -5,6 +5,7 @@ import api.model.Profile;
 import javax.enterprise.context.RequestScoped;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.transaction.Transactional;
 import java.util.List;
 
 @RequestScoped
@@ -21,6 +22,13 @@ public class ProfileDAO {
         return em.find(Profile.class, email);
     }
 
+    /**
+     * @return a Profile that is known to exist, without reading it from the database
+     */
+    public Profile referenceProfile(String email) {
+        return em.getReference(Profile.class, email);
+    }
+
     public void updateProfile(Profile profile) {
         em.merge(profile);
     }
@@ -37,4 +45,80 @@ public class ProfileDAO {
         return em.createNamedQuery("Profile.findProfileByUsername", Profile.class)
                 .setParameter("username", username).getSingleResult();
     }
+
+    /**
+     * Inserts the single follow row, and updates both Profiles' counts, without loading the following collection.
+     * <p>
+     * Runs in its own short transaction, so an identical follow committed concurrently fails only this insert, not the
+     * caller's transaction.
+     *
+     * @return true if the follower wasn't already following the followed Profile
+     * @throws javax.persistence.PersistenceException for which DuplicateKeys.isDuplicateKey is true if a concurrent
+     *                                                request added the same follow first
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public boolean follow(String followerEmail, String followedEmail) {
+        boolean followed = em.createNamedQuery("Profile.insertFollow")
+                .setParameter(1, followerEmail)
+                .setParameter(2, followedEmail)
+                .executeUpdate() == 1;
+        if (followed) {
+            updateFollowCounts(followerEmail, followedEmail, 1);
+        }
+        return followed;
+    }
+
+    /**
+     * Deletes the single follow row, and updates both Profiles' counts, without loading the following collection.
+     *
+     * @return true if the follower was following the followed Profile
+     */
+    public boolean unfollow(String followerEmail, String followedEmail) {
+        boolean unfollowed = em.createNamedQuery("Profile.deleteFollow")
+                .setParameter(1, followerEmail)
+                .setParameter(2, followedEmail)
+                .executeUpdate() == 1;
+        if (unfollowed) {
+            updateFollowCounts(followerEmail, followedEmail, -1);
+        }
+        return unfollowed;
+    }
+
+    /**
+     * Atomically adds delta to the Profile's articlesCount in the database, without reading the Profile.
+     */
+    public void updateArticlesCount(String email, int delta) {
+        em.createNamedQuery("Profile.updateArticlesCount")
+                .setParameter("delta", delta)
+                .setParameter("email", email)
+                .executeUpdate();
+    }
+
+    private void updateFollowCounts(String followerEmail, String followedEmail, int delta) {
+        em.createNamedQuery("Profile.updateFollowingCount")
+                .setParameter("delta", delta)
+                .setParameter("email", followerEmail)
+                .executeUpdate();
+        em.createNamedQuery("Profile.updateFollowersCount")
+                .setParameter("delta", delta)
+                .setParameter("email", followedEmail)
+                .executeUpdate();
+    }
+
+    /**
+     * @return the emails of the Profiles following the Profile with the given email, read through the index on the
+     * followed column
+     */
+    public List<String> readFollowerEmails(String email) {
+        return em.createNamedQuery("Profile.findFollowerEmails", String.class)
+                .setParameter("email", email)
+                .getResultList();
+    }
+
+    /**
+     * @return every follow, as the follower's email then the followed Profile's email
+     */
+    public List<Object[]> readFollowEdges() {
+        return em.createNamedQuery("Profile.findFollowEdges", Object[].class).getResultList();
+    }
 }
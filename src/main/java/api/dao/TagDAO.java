@@ -5,7 +5,12 @@ import api.model.Tag;
 import javax.enterprise.context.RequestScoped;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
+import javax.persistence.Query;
+import javax.transaction.Transactional;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 @RequestScoped
 public class TagDAO {
@@ -17,10 +22,49 @@ public class TagDAO {
         em.persist(tag);
     }
 
+    /**
+     * Inserts the given tags with a single statement, skipping any that already exist.
+     * <p>
+     * Runs in its own short transaction so the new tags are visible to concurrent requests straight away, rather than
+     * when the Article that introduced them commits.
+     */
+    @Transactional(Transactional.TxType.REQUIRES_NEW)
+    public void createTags(Collection<String> tags) {
+        StringBuilder values = new StringBuilder();
+        for (int i = 1; i <= tags.size(); i++) {
+            values.append(i == 1 ? "" : ", ").append("(CAST(?").append(i).append(" AS VARCHAR(255)))");
+        }
+        Query insert = em.createNativeQuery(""
+                + "INSERT INTO tags (tagTag) "
+                + "SELECT v.tagTag FROM (VALUES " + values + ") AS v (tagTag) "
+                + "WHERE NOT EXISTS (SELECT 1 FROM tags t WHERE t.tagTag = v.tagTag)");
+        int position = 1;
+        for (String tag : tags) {
+            insert.setParameter(position++, tag);
+        }
+        insert.executeUpdate();
+    }
+
     public Tag readTag(String tag) {
         return em.find(Tag.class, tag);
     }
 
+    /**
+     * @return a Tag that is known to exist, without reading it from the database
+     */
+    public Tag referenceTag(String tag) {
+        return em.getReference(Tag.class, tag);
+    }
+
+    /**
+     * @return the Tags out of the given names that exist, read with a single <code>IN</code> query
+     */
+    public List<Tag> readTags(Collection<String> tags) {
+        return em.createNamedQuery("Tag.findTags", Tag.class)
+                .setParameter("tags", tags)
+                .getResultList();
+    }
+
     public void updateTag(Tag tag) {
         em.merge(tag);
     }
@@ -33,4 +77,19 @@ public class TagDAO {
         return em.createNamedQuery("Tag.findAll", Tag.class).getResultList();
     }
 
+    /**
+     * @return every tag mapped to the number of Articles using it, including unused tags
+     */
+    public Map<String, Integer> readTagUsage() {
+        Map<String, Integer> usage = new HashMap<>();
+        readAllTags().forEach(tag -> usage.put(tag.getTag(), 0));
+
+        List<?> counts = em.createNamedQuery("Tag.countUsage").getResultList();
+        for (Object row : counts) {
+            Object[] count = (Object[]) row;
+            usage.put((String) count[0], ((Number) count[1]).intValue());
+        }
+        return usage;
+    }
+
 }
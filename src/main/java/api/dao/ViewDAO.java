@@ -0,0 +1,56 @@
+package api.dao;
+
+import api.model.Article;
+import api.utils.CommentCursor;
+import api.view.CommentView;
+import api.view.ProfileView;
+
+import javax.enterprise.context.RequestScoped;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.util.List;
+
+/**
+ * Reads for GET endpoints that only write what they read. Each returns immutable views built by JPQL constructor
+ * expressions, so no entity is registered with the persistence context, tracked for changes or lazily loaded.
+ * <p>
+ * Anything that is updated, or needs an entity's relationships, still reads through the entity DAOs.
+ */
+@RequestScoped
+public class ViewDAO {
+
+    @PersistenceContext(name = "jpa-unit")
+    private EntityManager em;
+
+    /**
+     * @throws javax.persistence.NoResultException if no Profile has the username, as ProfileDAO.findProfileByUsername
+     */
+    public ProfileView readProfileByUsername(String username) {
+        return em.createNamedQuery("Profile.findViewByUsername", ProfileView.class)
+                .setParameter("username", username)
+                .getSingleResult();
+    }
+
+    /**
+     * @param limit the maximum number of Comments to read. 0 or less for all of them.
+     * @param after if not null, only Comments after the cursor's Comment are read
+     * @return the Article's Comments, oldest first
+     */
+    public List<CommentView> readArticleComments(Article article, int limit, CommentCursor after) {
+        TypedQuery<CommentView> query;
+        if (after != null) {
+            query = em.createNamedQuery("Comment.findArticleCommentViewsAfter", CommentView.class)
+                    .setParameter("createdAt", after.getCreatedAt())
+                    .setParameter("id", after.getId());
+        } else {
+            query = em.createNamedQuery("Comment.findArticleCommentViews", CommentView.class);
+        }
+        query.setParameter("article", article);
+        if (limit > 0) {
+            query.setMaxResults(limit);
+        }
+        return query.getResultList();
+    }
+
+}
@@ -0,0 +1,86 @@
+package api.events;
+
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Fired by ArticleResource when an Article changes.
+ * <p>
+ * Observers that keep state derived from the database should use
+ * <code>@Observes(during = TransactionPhase.AFTER_SUCCESS)</code>, so they only see changes that were committed.
+ */
+public class ArticleEvent {
+
+    public enum Type {
+        CREATED, UPDATED, DELETED, FAVORITED, UNFAVORITED
+    }
+
+    private final Type type;
+    private final int articleId;
+    private final String authorEmail;
+    private final LocalDateTime createdAt;
+    private final String slug;
+    private final Set<String> tags;
+    private final String favoritedBy;
+
+    /**
+     * @param slug the Article's slug before the change
+     */
+    public ArticleEvent(Type type, int articleId, String authorEmail, LocalDateTime createdAt, String slug,
+                        Set<String> tags) {
+        this(type, articleId, authorEmail, createdAt, slug, tags, null);
+    }
+
+    /**
+     * @param favoritedBy for FAVORITED and UNFAVORITED, the username of the Profile that changed its favorite
+     */
+    public ArticleEvent(Type type, int articleId, String authorEmail, LocalDateTime createdAt, String slug,
+                        Set<String> tags, String favoritedBy) {
+        this.type = type;
+        this.articleId = articleId;
+        this.authorEmail = authorEmail;
+        this.createdAt = createdAt;
+        this.slug = slug;
+        this.tags = Collections.unmodifiableSet(tags);
+        this.favoritedBy = favoritedBy;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public int getArticleId() {
+        return articleId;
+    }
+
+    public String getAuthorEmail() {
+        return authorEmail;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    /**
+     * @return the Article's slug before the change. An UPDATED Article may have a new slug.
+     */
+    public String getSlug() {
+        return slug;
+    }
+
+    /**
+     * @return the names of the Article's tags
+     */
+    public Set<String> getTags() {
+        return tags;
+    }
+
+    /**
+     * @return the username of the Profile that favorited or unfavorited the Article. null for other types.
+     */
+    public String getFavoritedBy() {
+        return favoritedBy;
+    }
+
+}
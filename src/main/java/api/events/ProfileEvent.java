@@ -0,0 +1,41 @@
+package api.events;
+
+/**
+ * Fired by UserResource and ProfileResource when a Profile, or who it follows, changes.
+ * <p>
+ * Observers that keep state derived from the database should use
+ * <code>@Observes(during = TransactionPhase.AFTER_SUCCESS)</code>, so they only see changes that were committed.
+ */
+public class ProfileEvent {
+
+    public enum Type {
+        UPDATED, FOLLOWED, UNFOLLOWED
+    }
+
+    private final Type type;
+    private final String email;
+    private final String followedEmail;
+
+    /**
+     * @param email         the email of the Profile that changed, or that followed or unfollowed someone
+     * @param followedEmail the email of the Profile that was followed or unfollowed. null for UPDATED.
+     */
+    public ProfileEvent(Type type, String email, String followedEmail) {
+        this.type = type;
+        this.email = email;
+        this.followedEmail = followedEmail;
+    }
+
+    public Type getType() {
+        return type;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getFollowedEmail() {
+        return followedEmail;
+    }
+
+}
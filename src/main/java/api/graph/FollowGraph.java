@@ -0,0 +1,213 @@
+package api.graph;
+
+import api.dao.ProfileDAO;
+import api.events.ProfileEvent;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Who follows whom, held in memory and shared by all requests, so "does the caller follow this author" never needs
+ * the database.
+ * <p>
+ * Each Profile's email is given a dense int id the first time it's seen, and each Profile's following and followers
+ * are IntHashSets of those ids, so an edge costs a few bytes in each direction rather than a boxed entry. The edges
+ * are read from the database once, then kept up to date from committed ProfileEvents.
+ */
+@ApplicationScoped
+public class FollowGraph {
+
+    private static final int[] NONE = new int[0];
+
+    @Inject
+    private ProfileDAO profileDAO;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // All guarded by lock. Id 0 is never assigned, as IntHashSet can't store it.
+    private final Map<String, Integer> ids = new HashMap<>();
+    private final List<String> emails = new ArrayList<>(Collections.singletonList(null));
+    private IntHashSet[] following = new IntHashSet[16];
+    private IntHashSet[] followers = new IntHashSet[16];
+    private int edges;
+    private volatile boolean loaded;
+
+    public boolean isFollowing(String followerEmail, String followedEmail) {
+        load();
+        lock.readLock().lock();
+        try {
+            Integer follower = ids.get(followerEmail);
+            Integer followed = ids.get(followedEmail);
+            return follower != null && followed != null && following[follower] != null
+                    && following[follower].contains(followed);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * @return the emails of the Profiles followed by the given Profile
+     */
+    public List<String> getFollowing(String email) {
+        return toEmails(email, following);
+    }
+
+    /**
+     * @return the emails of the Profiles following the given Profile
+     */
+    public List<String> getFollowers(String email) {
+        return toEmails(email, followers);
+    }
+
+    public int countFollowers(String email) {
+        load();
+        lock.readLock().lock();
+        try {
+            Integer id = ids.get(email);
+            return id == null || followers[id] == null ? 0 : followers[id].size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Applies every committed change, even before the edges are first read or while they are being read, as a load
+     * that already saw the change is left the same by it. follow and unfollow wait for a load in progress.
+     */
+    public void onProfileEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProfileEvent event) {
+        switch (event.getType()) {
+            case FOLLOWED:
+                follow(event.getEmail(), event.getFollowedEmail());
+                break;
+            case UNFOLLOWED:
+                unfollow(event.getEmail(), event.getFollowedEmail());
+                break;
+            default:
+                break;
+        }
+    }
+
+    public void follow(String followerEmail, String followedEmail) {
+        lock.writeLock().lock();
+        try {
+            int follower = idOf(followerEmail);
+            int followed = idOf(followedEmail);
+            if (adjacency(following, follower).add(followed)) {
+                adjacency(followers, followed).add(follower);
+                edges++;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void unfollow(String followerEmail, String followedEmail) {
+        lock.writeLock().lock();
+        try {
+            Integer follower = ids.get(followerEmail);
+            Integer followed = ids.get(followedEmail);
+            if (follower != null && followed != null && following[follower] != null
+                    && following[follower].remove(followed)) {
+                followers[followed].remove(follower);
+                edges--;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return an estimate of the heap used by the adjacency sets, in bytes. The id mapping isn't included, as the
+     * emails are shared with the rest of the application.
+     */
+    public long adjacencySizeInBytes() {
+        lock.readLock().lock();
+        try {
+            long bytes = 2 * (16 + 4L * following.length); // the two arrays of sets
+            for (int id = 1; id < emails.size(); id++) {
+                bytes += following[id] == null ? 0 : following[id].sizeInBytes();
+                bytes += followers[id] == null ? 0 : followers[id].sizeInBytes();
+            }
+            return bytes;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countEdges() {
+        lock.readLock().lock();
+        try {
+            return edges;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (!loaded) {
+                for (Object[] edge : profileDAO.readFollowEdges()) {
+                    int follower = idOf((String) edge[0]);
+                    int followed = idOf((String) edge[1]);
+                    if (adjacency(following, follower).add(followed)) {
+                        adjacency(followers, followed).add(follower);
+                        edges++;
+                    }
+                }
+                loaded = true;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<String> toEmails(String email, IntHashSet[] adjacency) {
+        load();
+        lock.readLock().lock();
+        try {
+            Integer id = ids.get(email);
+            int[] neighbours = id == null || adjacency[id] == null ? NONE : adjacency[id].toArray();
+            List<String> result = new ArrayList<>(neighbours.length);
+            Arrays.stream(neighbours).forEach(neighbour -> result.add(emails.get(neighbour)));
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int idOf(String email) { // Must hold the write lock
+        Integer id = ids.get(email);
+        if (id == null) {
+            id = emails.size();
+            ids.put(email, id);
+            emails.add(email);
+            if (id == following.length) {
+                following = Arrays.copyOf(following, id * 2);
+                followers = Arrays.copyOf(followers, id * 2);
+            }
+        }
+        return id;
+    }
+
+    private static IntHashSet adjacency(IntHashSet[] sets, int id) { // Must hold the write lock
+        if (sets[id] == null) {
+            sets[id] = new IntHashSet();
+        }
+        return sets[id];
+    }
+
+}
@@ -0,0 +1,128 @@
+package api.graph;
+
+import java.util.Arrays;
+
+/**
+ * A set of positive ints, stored unboxed in an open addressing table with linear probing.
+ * <p>
+ * 0 marks an empty slot, so it can't be stored. Removal shifts the following entries back rather than leaving
+ * tombstones, so the table never needs rebuilding after many removals. Not thread safe.
+ */
+public class IntHashSet {
+
+    private static final int MIN_CAPACITY = 4;
+
+    private int[] table;
+    private int size;
+
+    public IntHashSet() {
+        table = new int[MIN_CAPACITY];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean contains(int value) {
+        int mask = table.length - 1;
+        for (int i = mix(value) & mask; table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if the value wasn't already in the set
+     */
+    public boolean add(int value) {
+        if (value <= 0) {
+            throw new IllegalArgumentException("Only positive values can be stored: " + value);
+        }
+        if ((size + 1) * 4 > table.length * 3) { // keep the load factor at or below 0.75
+            resize(table.length * 2);
+        }
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        for (; table[i] != 0; i = (i + 1) & mask) {
+            if (table[i] == value) {
+                return false;
+            }
+        }
+        table[i] = value;
+        size++;
+        return true;
+    }
+
+    /**
+     * @return true if the value was in the set
+     */
+    public boolean remove(int value) {
+        int mask = table.length - 1;
+        int i = mix(value) & mask;
+        for (; table[i] != value; i = (i + 1) & mask) {
+            if (table[i] == 0) {
+                return false;
+            }
+        }
+        // Shift back any following entries that probed past the freed slot
+        for (int j = (i + 1) & mask; table[j] != 0; j = (j + 1) & mask) {
+            int home = mix(table[j]) & mask;
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = 0;
+        size--;
+        return true;
+    }
+
+    /**
+     * @return the values in the set, in no particular order
+     */
+    public int[] toArray() {
+        int[] values = new int[size];
+        int n = 0;
+        for (int value : table) {
+            if (value != 0) {
+                values[n++] = value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * @return an estimate of the heap used by this set, in bytes
+     */
+    public long sizeInBytes() {
+        return 16 + 16 + 4L * table.length; // object header and fields, array header, slots
+    }
+
+    private void resize(int capacity) {
+        int[] old = table;
+        table = new int[capacity];
+        int mask = capacity - 1;
+        for (int value : old) {
+            if (value != 0) {
+                int i = mix(value) & mask;
+                while (table[i] != 0) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = value;
+            }
+        }
+    }
+
+    private static int mix(int value) {
+        int h = value * 0x9E3779B9; // Fibonacci hashing spreads sequential ids across the table
+        return h ^ (h >>> 16);
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(toArray());
+    }
+
+}
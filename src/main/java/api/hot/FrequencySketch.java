@@ -0,0 +1,83 @@
+package api.hot;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * A count-min sketch estimating how often each key has been seen recently, in a fixed amount of memory whatever the
+ * number of keys.
+ * <p>
+ * Each key increments one counter in each of four rows, chosen by differently seeded hashes, and its estimate is the
+ * smallest of them. Collisions can only make an estimate too high, never too low. Counters are atomics, so recording
+ * never takes a lock. Once as many keys have been recorded as ten times the width, every counter is halved, so old
+ * popularity fades.
+ */
+public class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final AtomicIntegerArray counters; // SEEDS.length rows of width counters
+    private final int width;
+    private final int sampleSize;
+    private final AtomicInteger additions = new AtomicInteger();
+    private final AtomicBoolean decaying = new AtomicBoolean();
+
+    /**
+     * @param width the counters in each row, rounded up to a power of two
+     */
+    public FrequencySketch(int width) {
+        this.width = Integer.highestOneBit(Math.max(2, width - 1)) << 1;
+        this.counters = new AtomicIntegerArray(SEEDS.length * this.width);
+        this.sampleSize = 10 * this.width;
+    }
+
+    /**
+     * @return the key's estimated count, including this increment
+     */
+    public int increment(String key) {
+        int hash = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            min = Math.min(min, counters.incrementAndGet(indexOf(hash, row)));
+        }
+        additions.incrementAndGet();
+        return min;
+    }
+
+    public int estimate(String key) {
+        int hash = key.hashCode();
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < SEEDS.length; row++) {
+            min = Math.min(min, counters.get(indexOf(hash, row)));
+        }
+        return min;
+    }
+
+    /**
+     * Halves every counter if enough keys have been recorded since the last time. Only one caller does so at once.
+     *
+     * @return true if this call halved the counters
+     */
+    public boolean decayIfDue() {
+        if (additions.get() < sampleSize || !decaying.compareAndSet(false, true)) {
+            return false;
+        }
+        try {
+            for (int i = 0; i < counters.length(); i++) {
+                counters.updateAndGet(i, count -> count >>> 1);
+            }
+            additions.addAndGet(-sampleSize / 2);
+            return true;
+        } finally {
+            decaying.set(false);
+        }
+    }
+
+    private int indexOf(int hash, int row) {
+        long mixed = (hash + SEEDS[row]) * SEEDS[row];
+        return row * width + ((int) (mixed >>> 32) & (width - 1));
+    }
+
+}
@@ -0,0 +1,66 @@
+package api.hot;
+
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Which Articles and Profiles are being requested most, recorded by slug in ArticleResource and by username in
+ * ProfileResource.
+ * <p>
+ * Access is heavily skewed, so most Articles are read too rarely for caching them to pay for the heap they'd hold.
+ * SlugCache and ArticleFragmentCache only admit an Article once its slug has been requested at least
+ * <code>api.hot.admit-count</code> times recently.
+ */
+@ApplicationScoped
+public class HotKeys {
+
+    @Inject
+    @ConfigProperty(name = "api.hot.sketch-width", defaultValue = "16384")
+    private int sketchWidth;
+
+    @Inject
+    @ConfigProperty(name = "api.hot.top-k", defaultValue = "32")
+    private int topK;
+
+    @Inject
+    @ConfigProperty(name = "api.hot.admit-count", defaultValue = "2")
+    private int admitCount;
+
+    private HotSet articles;
+    private HotSet profiles;
+
+    @PostConstruct
+    private void init() {
+        articles = new HotSet(sketchWidth, topK);
+        profiles = new HotSet(sketchWidth, topK);
+    }
+
+    public void recordArticle(String slug) {
+        articles.record(slug);
+    }
+
+    public void recordProfile(String username) {
+        profiles.record(username);
+    }
+
+    /**
+     * @return true if the Article with the slug is requested often enough to be cached
+     */
+    public boolean isHotArticle(String slug) {
+        return articles.estimate(slug) >= admitCount;
+    }
+
+    public List<Map.Entry<String, Integer>> getHotArticles() {
+        return articles.top();
+    }
+
+    public List<Map.Entry<String, Integer>> getHotProfiles() {
+        return profiles.top();
+    }
+
+}
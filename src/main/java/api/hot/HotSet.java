@@ -0,0 +1,41 @@
+package api.hot;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Tracks how often keys of one kind are accessed, with a FrequencySketch for every key and a TopK of the hottest.
+ */
+public class HotSet {
+
+    private final FrequencySketch sketch;
+    private final TopK top;
+
+    public HotSet(int sketchWidth, int topK) {
+        this.sketch = new FrequencySketch(sketchWidth);
+        this.top = new TopK(topK);
+    }
+
+    public void record(String key) {
+        int count = sketch.increment(key);
+        if (sketch.decayIfDue()) {
+            top.decay();
+        }
+        top.offer(key, count);
+    }
+
+    /**
+     * @return the key's estimated number of recent accesses
+     */
+    public int estimate(String key) {
+        return sketch.estimate(key);
+    }
+
+    /**
+     * @return the hottest keys with their estimated counts, hottest first
+     */
+    public List<Map.Entry<String, Integer>> top() {
+        return top.top();
+    }
+
+}
@@ -0,0 +1,70 @@
+package api.hot;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The k keys with the highest counts offered, with their counts.
+ * <p>
+ * A member's count is updated without a lock. Only a key that isn't a member, and whose count is above the smallest
+ * member's, takes the lock to replace that member, which is rare once the hot set has settled.
+ */
+public class TopK {
+
+    private final int k;
+    private final Map<String, Integer> members = new ConcurrentHashMap<>();
+    private volatile int threshold; // the smallest member's count when full, otherwise 0. At most the true minimum.
+
+    public TopK(int k) {
+        this.k = k;
+    }
+
+    public void offer(String key, int count) {
+        if (members.computeIfPresent(key, (member, previous) -> Math.max(previous, count)) != null
+                || count <= threshold) {
+            return;
+        }
+        synchronized (this) {
+            if (members.containsKey(key)) {
+                return;
+            }
+            if (members.size() >= k) {
+                Map.Entry<String, Integer> smallest = smallest();
+                if (count <= smallest.getValue()) {
+                    threshold = smallest.getValue();
+                    return;
+                }
+                members.remove(smallest.getKey());
+            }
+            members.put(key, count);
+            threshold = members.size() < k ? 0 : smallest().getValue();
+        }
+    }
+
+    /**
+     * Halves every member's count, matching a FrequencySketch being halved.
+     */
+    public synchronized void decay() {
+        members.replaceAll((member, count) -> count >>> 1);
+        threshold >>>= 1;
+    }
+
+    /**
+     * @return the members, highest count first
+     */
+    public List<Map.Entry<String, Integer>> top() {
+        List<Map.Entry<String, Integer>> top = new ArrayList<>(members.entrySet());
+        top.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        return top;
+    }
+
+    private Map.Entry<String, Integer> smallest() { // Must hold the lock
+        return members.entrySet().stream()
+                .min(Comparator.comparing(Map.Entry::getValue))
+                .orElseThrow(IllegalStateException::new);
+    }
+
+}
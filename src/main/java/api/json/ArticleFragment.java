@@ -0,0 +1,129 @@
+package api.json;
+
+import api.model.Article;
+import api.utils.ArticleFields;
+import api.utils.ArticleFields.Field;
+
+import javax.json.stream.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+/**
+ * An Article's JSON object, encoded once as UTF-8 bytes with gaps for the two fields that depend on who is asking:
+ * <code>favorited</code> and the author's <code>following</code>.
+ * <p>
+ * Immutable, so it can be cached and shared between requests. It's only valid for the Article version, favoritesCount
+ * and author profile it was encoded from.
+ */
+public class ArticleFragment {
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.UTF_8);
+
+    private final int articleId;
+    private final int version;
+    private final int favoritesCount;
+    private final String authorEmail;
+    private final int authorVersion;
+    private final LocalDateTime changedAt;
+    private final LocalDateTime authorUpdatedAt;
+    private final byte[] json; // encoded with both flags false
+    private final int favoritedEnd; // the offset just after favorited's value. 0 if it isn't a selected field.
+    private final int followingEnd; // the offset just after following's value. 0 if author isn't a selected field.
+
+    private ArticleFragment(Article article, byte[] json, int favoritedEnd, int followingEnd) {
+        this.articleId = article.getId();
+        this.version = article.getVersion();
+        this.favoritesCount = article.getFavoritesCount();
+        this.authorEmail = article.getAuthor().getEmail();
+        this.authorVersion = article.getAuthor().getVersion();
+        this.changedAt = article.getChangedAt();
+        this.authorUpdatedAt = article.getAuthor().getUpdatedAt();
+        this.json = json;
+        this.favoritedEnd = favoritedEnd;
+        this.followingEnd = followingEnd;
+    }
+
+    /**
+     * Encodes the selected fields of the Article as JsonResponses.writeArticle would, noting where the flags are. With
+     * every field selected, the bytes are exactly the same.
+     */
+    public static ArticleFragment of(Article article, ArticleFields fields) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1024);
+        JsonGenerator generator = JsonResponses.generator(out);
+
+        JsonResponses.writeArticleFields(generator, article, fields);
+        int favoritedEnd = 0;
+        if (fields.has(Field.FAVORITED)) {
+            generator.write("favorited", false).flush();
+            favoritedEnd = out.size();
+        }
+        if (fields.has(Field.FAVORITES_COUNT)) {
+            generator.write("favoritesCount", article.getFavoritesCount());
+        }
+        int followingEnd = 0;
+        if (fields.has(Field.AUTHOR)) {
+            generator.writeStartObject("author")
+                    .writeKey("author");
+            JsonResponses.writeProfileFields(generator, article.getAuthor());
+            generator.write("following", false).flush();
+            followingEnd = out.size();
+            generator.writeEnd() // the profile
+                    .writeEnd(); // its wrapper
+        }
+
+        generator.writeEnd() // the article
+                .flush();
+        return new ArticleFragment(article, out.toByteArray(), favoritedEnd, followingEnd);
+    }
+
+    public int getArticleId() {
+        return articleId;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public int getFavoritesCount() {
+        return favoritesCount;
+    }
+
+    public String getAuthorEmail() {
+        return authorEmail;
+    }
+
+    public int getAuthorVersion() {
+        return authorVersion;
+    }
+
+    public LocalDateTime getChangedAt() {
+        return changedAt;
+    }
+
+    public LocalDateTime getAuthorUpdatedAt() {
+        return authorUpdatedAt;
+    }
+
+    /**
+     * Writes the Article's object with the given flags.
+     */
+    public void writeTo(OutputStream out, boolean favorited, boolean following) throws IOException {
+        int written = 0;
+        if (favoritedEnd > 0) {
+            out.write(json, written, favoritedEnd - FALSE.length - written);
+            out.write(favorited ? TRUE : FALSE);
+            written = favoritedEnd;
+        }
+        if (followingEnd > 0) {
+            out.write(json, written, followingEnd - FALSE.length - written);
+            out.write(following ? TRUE : FALSE);
+            written = followingEnd;
+        }
+        out.write(json, written, json.length - written);
+    }
+
+}
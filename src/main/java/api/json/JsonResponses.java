@@ -0,0 +1,287 @@
+package api.json;
+
+import api.cache.Caller;
+import api.model.Article;
+import api.model.Comment;
+import api.model.Profile;
+import api.model.Tag;
+import api.utils.ArticleFields;
+import api.utils.ArticleFields.Field;
+import api.view.CommentView;
+import api.view.ProfileView;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+/**
+ * Streaming response bodies for Articles, Comments and Profiles.
+ * <p>
+ * Each writes the same fields, in the same order, as the JsonObjects BuildReturnObject used to build, but nested
+ * objects are written in place instead of being built, wrapped and unwrapped again. Article reads copy cached
+ * ArticleFragments, and only write the viewer's flags.
+ */
+public class JsonResponses {
+
+    private static final JsonGeneratorFactory GENERATORS = Json.createGeneratorFactory(Collections.emptyMap());
+
+    // The compact output of a generator around the fragments, which are only ever written in these objects
+    private static final byte[] ARTICLE_START = bytes("{\"article\":");
+    private static final byte[] ARTICLES_START = bytes("{\"articles\":[");
+    private static final byte[] ARTICLES_COUNT = bytes("],\"articlesCount\":");
+    private static final byte[] NEXT_CURSOR = bytes(",\"nextCursor\":");
+    private static final byte[] NULL = bytes("null");
+    private static final byte[] QUOTE = bytes("\"");
+    private static final byte[] COMMA = bytes(",");
+    private static final byte[] END = bytes("}");
+
+    private JsonResponses() {
+    }
+
+    /**
+     * @param currentUser the user making the request. null represents an unauthenticated request.
+     * @param favorited   whether currentUser has favorited the article
+     * @return <code>{"article": {...}}</code>
+     */
+    public static StreamingJson article(Article article, Caller currentUser, boolean favorited) {
+        return generated(generator -> {
+            generator.writeStartObject();
+            generator.writeKey("article");
+            writeArticle(generator, article, currentUser, favorited);
+            generator.writeEnd();
+        });
+    }
+
+    /**
+     * @return the same bytes as {@link #article(Article, Caller, boolean)} for the fragment's Article
+     */
+    public static StreamingJson article(ArticleFragment article, Caller currentUser, boolean favorited) {
+        return out -> {
+            out.write(ARTICLE_START);
+            article.writeTo(out, favorited, isFollowing(currentUser, article.getAuthorEmail()));
+            out.write(END);
+        };
+    }
+
+    /**
+     * @param favoritedIds the ids of the articles currentUser has favorited
+     * @param nextCursor   the cursor to request the following page with. null if this is the last page.
+     * @return <code>{"articles": [...], "articlesCount": n, "nextCursor": ...}</code>
+     */
+    public static StreamingJson articles(List<ArticleFragment> articles, Caller currentUser, Set<Integer> favoritedIds,
+                                         String nextCursor) {
+        return out -> {
+            out.write(ARTICLES_START);
+            for (int i = 0; i < articles.size(); i++) {
+                ArticleFragment article = articles.get(i);
+                if (i > 0) {
+                    out.write(COMMA);
+                }
+                article.writeTo(out, favoritedIds.contains(article.getArticleId()),
+                        isFollowing(currentUser, article.getAuthorEmail()));
+            }
+            out.write(ARTICLES_COUNT);
+            out.write(bytes(Integer.toString(articles.size())));
+            out.write(NEXT_CURSOR);
+            if (nextCursor == null) {
+                out.write(NULL);
+            } else {
+                // Cursors are base64url, so never need escaping
+                out.write(QUOTE);
+                out.write(bytes(nextCursor));
+                out.write(QUOTE);
+            }
+            out.write(END);
+        };
+    }
+
+    /**
+     * @return <code>{"comment": {...}}</code>
+     */
+    public static StreamingJson comment(Comment comment, Caller currentUser) {
+        return generated(generator -> {
+            generator.writeStartObject();
+            generator.writeKey("comment");
+            writeComment(generator, comment, currentUser);
+            generator.writeEnd();
+        });
+    }
+
+    /**
+     * @param nextCursor the cursor to request the following page with. null if this is the last page.
+     * @return <code>{"comments": [...], "nextCursor": ...}</code>
+     */
+    public static StreamingJson comments(List<CommentView> comments, Caller currentUser, String nextCursor) {
+        return generated(generator -> {
+            generator.writeStartObject();
+            generator.writeStartArray("comments");
+            for (CommentView comment : comments) {
+                generator.writeStartObject()
+                        .write("id", comment.getId())
+                        .write("createdAt", formatTime(comment.getCreatedAt()))
+                        .write("updatedAt", formatTime(comment.getUpdatedAt()))
+                        .write("body", comment.getBody())
+                        .writeStartObject("author")
+                        .writeKey("author");
+                writeProfileFields(generator, comment.getAuthorUsername(), comment.getAuthorBio(),
+                        comment.getAuthorImage());
+                generator.write("following", isFollowing(currentUser, comment.getAuthorEmail()))
+                        .writeEnd() // the profile
+                        .writeEnd() // its wrapper
+                        .writeEnd();
+            }
+            generator.writeEnd();
+            writeNullable(generator, "nextCursor", nextCursor);
+            generator.writeEnd();
+        });
+    }
+
+    public static StreamingJson profile(ProfileView profile, Caller currentUser) {
+        return generated(generator -> {
+            generator.writeStartObject();
+            generator.writeKey("profile");
+            writeProfileFields(generator, profile.getUsername(), profile.getBio(), profile.getImage());
+            generator.write("following", isFollowing(currentUser, profile.getEmail()))
+                    .writeEnd();
+            generator.writeEnd();
+        });
+    }
+
+    /**
+     * @param following whether the user making the request follows the profile
+     * @return <code>{"profile": {...}}</code>
+     */
+    public static StreamingJson profile(Profile profile, boolean following) {
+        return generated(generator -> {
+            generator.writeStartObject();
+            generator.writeKey("profile");
+            writeProfile(generator, profile, following);
+            generator.writeEnd();
+        });
+    }
+
+    /**
+     * @return a generator writing compact UTF-8 JSON to out. Flush it, rather than closing it, when done.
+     */
+    static JsonGenerator generator(OutputStream out) {
+        return GENERATORS.createGenerator(out, StandardCharsets.UTF_8);
+    }
+
+    static void writeArticle(JsonGenerator generator, Article article, Caller currentUser, boolean favorited) {
+        writeArticleFields(generator, article, ArticleFields.ALL);
+        generator.write("favorited", favorited)
+                .write("favoritesCount", article.getFavoritesCount());
+        writeAuthor(generator, article.getAuthor(), currentUser);
+        generator.writeEnd();
+    }
+
+    /**
+     * Starts the Article's object and writes the selected fields up to, but not including, favorited. Attributes of
+     * fields that aren't selected are never read, so they may not have been loaded.
+     */
+    static void writeArticleFields(JsonGenerator generator, Article article, ArticleFields fields) {
+        generator.writeStartObject();
+        if (fields.has(Field.SLUG)) {
+            generator.write("slug", article.getSlug());
+        }
+        if (fields.has(Field.TITLE)) {
+            generator.write("title", article.getTitle());
+        }
+        if (fields.has(Field.DESCRIPTION)) {
+            writeNullable(generator, "description", article.getDescription());
+        }
+        if (fields.has(Field.BODY)) {
+            writeNullable(generator, "body", article.getBody());
+        }
+        if (fields.has(Field.TAG_LIST)) {
+            generator.writeStartArray("tagList");
+            for (Tag tag : article.getTagList()) {
+                generator.write(tag.getTag());
+            }
+            generator.writeEnd();
+        }
+        if (fields.has(Field.CREATED_AT)) {
+            generator.write("createdAt", formatTime(article.getCreatedAt()));
+        }
+        if (fields.has(Field.UPDATED_AT)) {
+            generator.write("updatedAt", formatTime(article.getUpdatedAt()));
+        }
+    }
+
+    static void writeComment(JsonGenerator generator, Comment comment, Caller currentUser) {
+        generator.writeStartObject()
+                .write("id", comment.getId())
+                .write("createdAt", formatTime(comment.getCreatedAt()))
+                .write("updatedAt", formatTime(comment.getUpdatedAt()))
+                .write("body", comment.getBody());
+        writeAuthor(generator, comment.getAuthor(), currentUser);
+        generator.writeEnd();
+    }
+
+    /**
+     * Writes <code>"author": {"author": {...}}</code> into the current object: the profile nested in its own wrapper,
+     * as clients have always received it.
+     */
+    private static void writeAuthor(JsonGenerator generator, Profile author, Caller currentUser) {
+        generator.writeStartObject("author")
+                .writeKey("author");
+        writeProfile(generator, author, isFollowing(currentUser, author.getEmail()));
+        generator.writeEnd();
+    }
+
+    private static void writeProfile(JsonGenerator generator, Profile profile, boolean following) {
+        writeProfileFields(generator, profile);
+        generator.write("following", following)
+                .writeEnd();
+    }
+
+    /**
+     * Starts the Profile's object and writes its fields up to, but not including, following.
+     */
+    static void writeProfileFields(JsonGenerator generator, Profile profile) {
+        writeProfileFields(generator, profile.getUsername(), profile.getBio(), profile.getImage());
+    }
+
+    private static void writeProfileFields(JsonGenerator generator, String username, String bio, String image) {
+        generator.writeStartObject()
+                .write("username", username);
+        writeNullable(generator, "bio", bio);
+        writeNullable(generator, "image", image);
+    }
+
+    private static boolean isFollowing(Caller currentUser, String email) {
+        return currentUser != null && currentUser.isFollowing(email);
+    }
+
+    private static void writeNullable(JsonGenerator generator, String name, String value) {
+        if (value == null) {
+            generator.writeNull(name);
+        } else {
+            generator.write(name, value);
+        }
+    }
+
+    private static String formatTime(LocalDateTime time) {
+        return time.toString().substring(0, 23).concat("Z");
+    }
+
+    private static StreamingJson generated(Consumer<JsonGenerator> body) {
+        return out -> {
+            JsonGenerator generator = generator(out);
+            body.accept(generator);
+            generator.flush(); // Not close, which would close the container's entity stream
+        };
+    }
+
+    private static byte[] bytes(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+
+}
@@ -0,0 +1,21 @@
+package api.json;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A response body that writes its UTF-8 JSON straight to the output stream, rather than being built as a JsonObject
+ * tree first. Written by StreamingJsonWriter.
+ * <p>
+ * Most are written with a JsonGenerator (see JsonResponses), but a body can also copy pre-encoded bytes, such as
+ * ArticleFragments.
+ */
+@FunctionalInterface
+public interface StreamingJson {
+
+    /**
+     * Writes one complete JSON value, normally an object. Must not close the stream.
+     */
+    void writeTo(OutputStream out) throws IOException;
+
+}
@@ -0,0 +1,35 @@
+package api.json;
+
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+/**
+ * Serializes StreamingJson response bodies by having them write straight to the entity stream.
+ * <p>
+ * JsonResponses' generators come from the same JSON-P provider, with the same default configuration, that JAX-RS uses
+ * to write JsonObjects, so the output is byte for byte what the equivalent JsonObject would produce.
+ */
+@Provider
+@Produces(MediaType.APPLICATION_JSON)
+public class StreamingJsonWriter implements MessageBodyWriter<StreamingJson> {
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType) {
+        return StreamingJson.class.isAssignableFrom(type);
+    }
+
+    @Override
+    public void writeTo(StreamingJson json, Class<?> type, Type genericType, Annotation[] annotations,
+                        MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream entityStream)
+            throws IOException {
+        json.writeTo(entityStream);
+    }
+
+}
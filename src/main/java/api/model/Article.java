@@ -10,18 +10,73 @@ import java.util.HashSet;
 import java.util.Set;
 
 @Entity
-@Table(name = "article")
-@NamedQuery(name = "Article.findAll", query = "SELECT a FROM Article a")
-@NamedQuery(name = "Article.findArticleBySlug", query = "SELECT a FROM Article a WHERE a.slug LIKE :slug")
-@NamedQuery(name = "Article.findListArticles", query = ""
-        + "SELECT DISTINCT a "
-        + "FROM Article a LEFT JOIN a.tagList t LEFT JOIN a.favoritedBy f "
-        + "WHERE (:tag is null or t.tag = :tag) AND (:author is null or a.author.username = :author) AND (:favorited is null or f.username = :favorited) "
-        + "ORDER BY a.createdAt desc")
+@Table(name = "article", indexes = {
+        @Index(name = "articleCreatedAtIndex", columnList = "articleCreatedAt, articleId"),
+        @Index(name = "articleAuthorCreatedAtIndex", columnList = "articleAuthor, articleCreatedAt, articleId"),
+        @Index(name = "articleDeletedAtIndex", columnList = "articleDeletedAt")})
+@NamedQuery(name = "Article.findAll", query = "SELECT a FROM Article a WHERE a.deletedAt IS NULL")
+@NamedQuery(name = "Article.findArticleBySlug", query = ""
+        + "SELECT a FROM Article a WHERE a.slug = :slug AND a.deletedAt IS NULL")
+@NamedQuery(name = "Article.findValidators", query = ""
+        + "SELECT a.id, a.version, a.favoritesCount, a.changedAt, p.email, p.version, p.updatedAt "
+        + "FROM Article a JOIN a.author p "
+        + "WHERE a.slug = :slug AND a.deletedAt IS NULL")
 @NamedQuery(name = "Article.findFeedArticles", query = ""
         + "SELECT a "
-        + "FROM Profile u JOIN u.following f JOIN f.published a "
-        + "WHERE u.username = :requestedBy")
+        + "FROM Article a "
+        + "WHERE a.author IN (SELECT f FROM Profile u JOIN u.following f WHERE u.username = :requestedBy) "
+        + "AND a.deletedAt IS NULL "
+        + "ORDER BY a.createdAt desc, a.id desc")
+@NamedQuery(name = "Article.findFeedArticlesBefore", query = ""
+        + "SELECT a "
+        + "FROM Article a "
+        + "WHERE a.author IN (SELECT f FROM Profile u JOIN u.following f WHERE u.username = :requestedBy) "
+        + "AND a.deletedAt IS NULL "
+        + "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) "
+        + "ORDER BY a.createdAt desc, a.id desc")
+@NamedQuery(name = "Article.findTimelineEntries", query = ""
+        + "SELECT a.createdAt, a.id "
+        + "FROM Article a "
+        + "WHERE a.author.email IN :authors AND a.deletedAt IS NULL "
+        + "ORDER BY a.createdAt desc, a.id desc")
+@NamedQuery(name = "Article.findArticlesByIds", query = ""
+        + "SELECT a "
+        + "FROM Article a "
+        + "WHERE a.id IN :ids AND a.deletedAt IS NULL "
+        + "ORDER BY a.createdAt desc, a.id desc")
+@NamedQuery(name = "Article.findArticlesByAuthors", query = ""
+        + "SELECT a "
+        + "FROM Article a "
+        + "WHERE a.author.email IN :authors AND a.deletedAt IS NULL "
+        + "ORDER BY a.createdAt desc, a.id desc")
+@NamedQuery(name = "Article.findArticlesByAuthorsBefore", query = ""
+        + "SELECT a "
+        + "FROM Article a "
+        + "WHERE a.author.email IN :authors AND a.deletedAt IS NULL "
+        + "AND (a.createdAt < :createdAt OR (a.createdAt = :createdAt AND a.id < :id)) "
+        + "ORDER BY a.createdAt desc, a.id desc")
+@NamedQuery(name = "Article.findTombstoneIds", query = ""
+        + "SELECT a.id FROM Article a WHERE a.deletedAt IS NOT NULL ORDER BY a.deletedAt")
+@NamedQuery(name = "Article.purgeTombstone", query = ""
+        + "DELETE FROM Article a WHERE a.id = :id AND a.deletedAt IS NOT NULL")
+@NamedQuery(name = "Article.findFavoritedArticleIds", query = ""
+        + "SELECT a.id "
+        + "FROM Article a JOIN a.favoritedBy f "
+        + "WHERE f.email = :email AND a.id IN :ids")
+@NamedQuery(name = "Article.updateFavoritesCount", query = ""
+        + "UPDATE Article a "
+        + "SET a.favoritesCount = a.favoritesCount + :delta, a.changedAt = :changedAt "
+        + "WHERE a.id = :id")
+@NamedNativeQuery(name = "Article.insertFavorite", query = ""
+        + "INSERT INTO articleFavorites (favoriteArticle, favoriteProfile) "
+        + "SELECT CAST(?1 AS INTEGER), CAST(?2 AS VARCHAR(255)) FROM SYSIBM.SYSDUMMY1 "
+        + "WHERE NOT EXISTS (SELECT 1 FROM articleFavorites WHERE favoriteArticle = ?1 AND favoriteProfile = ?2)")
+@NamedNativeQuery(name = "Article.deleteFavorite", query = ""
+        + "DELETE FROM articleFavorites WHERE favoriteArticle = ?1 AND favoriteProfile = ?2")
+@NamedNativeQuery(name = "Article.findFavoriteProfiles", query = ""
+        + "SELECT favoriteProfile FROM articleFavorites WHERE favoriteArticle = ?1")
+@NamedNativeQuery(name = "Article.deleteTagLinks", query = ""
+        + "DELETE FROM articleTags WHERE tagArticle = ?1")
 @Schema(name = "articleExample", type = SchemaType.OBJECT, example =
         "{\n"
                 + "  \"article\": {\n"
@@ -49,35 +104,53 @@ public class Article implements Serializable {
     @GeneratedValue(strategy = GenerationType.AUTO)
     @Column(name = "articleId", nullable = false)
     private int id;
-    @Column(name = "articleSlug", nullable = false)
+    @Column(name = "articleSlug", nullable = false, unique = true)
     private String slug;
     @Column(name = "articleTitle", nullable = false)
     private String title;
     @Column(name = "articleDescription", nullable = true)
     private String description;
+    @Basic(fetch = FetchType.LAZY) // Lists leave it out by default, so only read when it is used
     @Column(name = "articleBody", nullable = true)
     private String body;
 
-    @OneToMany // One article can have many tags
-    @JoinColumn(name = "articleTagList", nullable = true)
+    @ManyToMany // One article can have many tags, which can each belong to many articles
+    @JoinTable(name = "articleTags",
+            joinColumns = @JoinColumn(name = "tagArticle", nullable = false),
+            inverseJoinColumns = @JoinColumn(name = "tagName", nullable = false),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"tagArticle", "tagName"}),
+            indexes = @Index(name = "tagNameIndex", columnList = "tagName, tagArticle"))
     private Set<Tag> tagList;
 
     @Column(name = "articleCreatedAt", nullable = false)
     private LocalDateTime createdAt;
     @Column(name = "articleUpdatedAt", nullable = false)
     private LocalDateTime updatedAt;
-
-    @OneToMany // One article can be favorited by many authors
-    @JoinColumn(name = "articleFavoritedBy", nullable = true)
-    private Set<Profile> favoritedBy;
+    @Version
+    @Column(name = "articleVersion", nullable = false)
+    private int version; // Incremented by edits, not favorites, so an edit never conflicts with a favorite
+    @Column(name = "articleChangedAt", nullable = false)
+    private LocalDateTime changedAt; // Set by edits and favorites, unlike updatedAt which only follows edits
+    @Column(name = "articleDeletedAt", nullable = true)
+    private LocalDateTime deletedAt; // Set when the Article is deleted, until ArticlePurger removes it
+
+    @ManyToMany // One article can be favorited by many authors, who can each favorite many articles
+    @JoinTable(name = "articleFavorites",
+            joinColumns = @JoinColumn(name = "favoriteArticle", nullable = false),
+            inverseJoinColumns = @JoinColumn(name = "favoriteProfile", nullable = false),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"favoriteArticle", "favoriteProfile"}),
+            indexes = @Index(name = "favoriteProfileIndex", columnList = "favoriteProfile, favoriteArticle"))
+    private Set<Profile> favoritedBy; // Only navigated in queries. Rows are added and removed by ArticleDAO
+
+    @Column(name = "articleFavoritesCount", nullable = false)
+    private int favoritesCount; // Maintained on write, so reading it never loads favoritedBy
 
     @ManyToOne(fetch = FetchType.LAZY) // Many articles can belong to one author
     @JoinColumn(name = "articleAuthor", nullable = false)
     private Profile author;
 
-    @OneToMany // One article can have many comments
-    @JoinColumn(name = "articleComments", nullable = true)
-    private Set<Comment> comments;
+    @OneToMany(mappedBy = "article") // One article can have many comments
+    private Set<Comment> comments; // Read a page at a time through CommentDAO rather than loaded in full
 
     public Article() {
 
@@ -86,8 +159,8 @@ public class Article implements Serializable {
     @Override
     public String toString() {
         return "Article [slug=" + slug + ", title=" + title + ", description=" + description + ", body=" + body
-                + ", tagList=" + tagList + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt + ", favoritedBy="
-                + favoritedBy.size() + ", author=" + author + ", comments=" + comments + "]";
+                + ", tagList=" + tagList + ", createdAt=" + createdAt + ", updatedAt=" + updatedAt + ", favoritesCount="
+                + favoritesCount + ", author=" + author + "]";
     }
 
     public Article(String title, String description, String body, Set<Tag> tagList, Profile author) {
@@ -98,6 +171,7 @@ public class Article implements Serializable {
         LocalDateTime createdAt = LocalDateTime.now();
         this.createdAt = createdAt;
         this.updatedAt = createdAt;
+        this.changedAt = createdAt;
         this.favoritedBy = new HashSet<Profile>();
         this.author = author;
         this.comments = new HashSet<Comment>();
@@ -112,6 +186,14 @@ public class Article implements Serializable {
 
     }
 
+    public int getId() {
+        return id;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
     public String getSlug() {
         return slug;
     }
@@ -123,6 +205,19 @@ public class Article implements Serializable {
     public void setTitle(String title) {
         this.title = title;
         this.slug = toSlug(title);
+        updated();
+    }
+
+    public boolean isDeleted() {
+        return deletedAt != null;
+    }
+
+    /**
+     * Hides the Article from every read. Its rows are removed later, in the background, by ArticlePurger.
+     */
+    public void markDeleted() {
+        this.deletedAt = LocalDateTime.now();
+        this.changedAt = deletedAt;
     }
 
     public String getDescription() {
@@ -131,6 +226,7 @@ public class Article implements Serializable {
 
     public void setDescription(String description) {
         this.description = description;
+        updated();
     }
 
     public String getBody() {
@@ -139,6 +235,12 @@ public class Article implements Serializable {
 
     public void setBody(String body) {
         this.body = body;
+        updated();
+    }
+
+    private void updated() {
+        this.updatedAt = LocalDateTime.now();
+        this.changedAt = updatedAt;
     }
 
     public Set<Tag> getTagList() {
@@ -153,16 +255,15 @@ public class Article implements Serializable {
         return updatedAt;
     }
 
-    public Set<Profile> getFavoritedBy() {
-        return favoritedBy;
-    }
-
-    public void addFavoritedBy(Profile favoritedBy) {
-        this.favoritedBy.add(favoritedBy);
+    /**
+     * @return when anything returned for the Article last changed, including favoritesCount
+     */
+    public LocalDateTime getChangedAt() {
+        return changedAt;
     }
 
-    public void removeFavoritedBy(Profile favoritedBy) {
-        this.favoritedBy.remove(favoritedBy);
+    public int getFavoritesCount() {
+        return favoritesCount;
     }
 
     public Profile getAuthor() {
@@ -172,12 +273,4 @@ public class Article implements Serializable {
     public Set<Comment> getComments() {
         return comments;
     }
-
-    public void addComment(Comment comment) {
-        this.comments.add(comment);
-    }
-
-    public void removeComment(Comment comment) {
-        this.comments.remove(comment);
-    }
 }
@@ -8,8 +8,26 @@ import java.io.Serializable;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "comments")
+@Table(name = "comments", indexes = @Index(name = "commentArticleCreatedAtIndex",
+        columnList = "commentArticle, commentCreatedAt, commentId"))
 @NamedQuery(name = "Comment.findAll", query = "SELECT c FROM Comment c")
+@NamedQuery(name = "Comment.findArticleCommentViews", query = ""
+        + "SELECT NEW api.view.CommentView(c.id, c.createdAt, c.updatedAt, c.body, p.email, p.username, p.bio, p.image) "
+        + "FROM Comment c JOIN c.author p "
+        + "WHERE c.article = :article "
+        + "ORDER BY c.createdAt, c.id")
+@NamedQuery(name = "Comment.findArticleCommentViewsAfter", query = ""
+        + "SELECT NEW api.view.CommentView(c.id, c.createdAt, c.updatedAt, c.body, p.email, p.username, p.bio, p.image) "
+        + "FROM Comment c JOIN c.author p "
+        + "WHERE c.article = :article "
+        + "AND (c.createdAt > :createdAt OR (c.createdAt = :createdAt AND c.id > :id)) "
+        + "ORDER BY c.createdAt, c.id")
+@NamedQuery(name = "Comment.findArticleCommentIds", query = "SELECT c.id FROM Comment c WHERE c.article.id = :articleId")
+@NamedQuery(name = "Comment.findValidators", query = ""
+        + "SELECT COUNT(c), MAX(c.id), SUM(c.id), SUM(p.version), MAX(c.createdAt), MAX(p.updatedAt) "
+        + "FROM Comment c JOIN c.author p "
+        + "WHERE c.article = :article")
+@NamedQuery(name = "Comment.deleteComments", query = "DELETE FROM Comment c WHERE c.id IN :ids")
 @Schema(name = "commentExample", type = SchemaType.OBJECT, example =
         "{\n"
                 + "  \"comment\": {\n"
@@ -80,4 +98,8 @@ public class Comment implements Serializable {
     public String getBody() {
         return body;
     }
+
+    public Article getArticle() {
+        return article;
+    }
 }
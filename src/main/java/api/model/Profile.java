@@ -5,13 +5,33 @@ import org.eclipse.microprofile.openapi.annotations.media.Schema;
 
 import javax.persistence.*;
 import java.io.Serializable;
+import java.time.LocalDateTime;
 import java.util.HashSet;
 import java.util.Set;
 
 @Entity
 @Table(name = "profiles")
 @NamedQuery(name = "Profile.findAll", query = "SELECT u FROM Profile u")
-@NamedQuery(name = "Profile.findProfileByUsername", query = "SELECT u FROM Profile u WHERE u.username LIKE :username")
+@NamedQuery(name = "Profile.findProfileByUsername", query = "SELECT u FROM Profile u WHERE u.username = :username")
+@NamedQuery(name = "Profile.findViewByUsername", query = ""
+        + "SELECT NEW api.view.ProfileView(u.email, u.username, u.bio, u.image, u.version, u.updatedAt) "
+        + "FROM Profile u "
+        + "WHERE u.username = :username")
+@NamedQuery(name = "Profile.findFollowEdges", query = "SELECT u.email, f.email FROM Profile u JOIN u.following f")
+@NamedQuery(name = "Profile.findFollowerEmails", query = ""
+        + "SELECT u.email FROM Profile u JOIN u.following f WHERE f.email = :email")
+@NamedQuery(name = "Profile.updateFollowingCount", query = ""
+        + "UPDATE Profile u SET u.followingCount = u.followingCount + :delta WHERE u.email = :email")
+@NamedQuery(name = "Profile.updateFollowersCount", query = ""
+        + "UPDATE Profile u SET u.followersCount = u.followersCount + :delta WHERE u.email = :email")
+@NamedQuery(name = "Profile.updateArticlesCount", query = ""
+        + "UPDATE Profile u SET u.articlesCount = u.articlesCount + :delta WHERE u.email = :email")
+@NamedNativeQuery(name = "Profile.insertFollow", query = ""
+        + "INSERT INTO follows (followFollower, followFollowed) "
+        + "SELECT CAST(?1 AS VARCHAR(255)), CAST(?2 AS VARCHAR(255)) FROM SYSIBM.SYSDUMMY1 "
+        + "WHERE NOT EXISTS (SELECT 1 FROM follows WHERE followFollower = ?1 AND followFollowed = ?2)")
+@NamedNativeQuery(name = "Profile.deleteFollow", query = ""
+        + "DELETE FROM follows WHERE followFollower = ?1 AND followFollowed = ?2")
 @Schema(name = "profileExample", type = SchemaType.OBJECT, example =
         "{\n"
                 + "  \"profile\": {\n"
@@ -34,13 +54,28 @@ public class Profile implements Serializable {
     @Column(name = "profileImage", nullable = true)
     private String image;
 
-    @OneToMany // One Profile (user) can follow many other Profiles (users) 
-    @JoinColumn(name = "profileFollowing", nullable = true)
-    private Set<Profile> following;
+    @ManyToMany // One Profile (user) can follow many other Profiles (users), and be followed by many
+    @JoinTable(name = "follows",
+            joinColumns = @JoinColumn(name = "followFollower", nullable = false),
+            inverseJoinColumns = @JoinColumn(name = "followFollowed", nullable = false),
+            uniqueConstraints = @UniqueConstraint(columnNames = {"followFollower", "followFollowed"}),
+            indexes = @Index(name = "followFollowedIndex", columnList = "followFollowed, followFollower"))
+    private Set<Profile> following; // Only navigated in queries. Rows are added and removed by ProfileDAO
 
-    @OneToMany // One Profile (user) can publish many Articles 
-    @JoinColumn(name = "profilePublished", nullable = true)
-    private Set<Article> published;
+    @Column(name = "profileFollowingCount", nullable = false)
+    private int followingCount; // Maintained on write, like followersCount
+
+    @Column(name = "profileFollowersCount", nullable = false)
+    private int followersCount;
+
+    @Column(name = "profileArticlesCount", nullable = false)
+    private int articlesCount; // Authorship is only recorded by Article.author, so this is maintained on write
+
+    @Version
+    @Column(name = "profileVersion", nullable = false)
+    private int version; // Not incremented by the bulk count updates, which aren't part of the profile returned
+    @Column(name = "profileUpdatedAt", nullable = false)
+    private LocalDateTime updatedAt;
 
     @Column(name = "profilePassword")
     private String password; //TODO: should this really be stored here? perhaps encrypt before storing? or should this be front-ends job?
@@ -53,7 +88,7 @@ public class Profile implements Serializable {
         this.username = username;
         this.password = password;
         this.following = new HashSet<>();
-        this.published = new HashSet<>();
+        this.updatedAt = LocalDateTime.now();
     }
 
     public String getEmail() {
@@ -62,6 +97,7 @@ public class Profile implements Serializable {
 
     public void setEmail(String email) {
         this.email = email;
+        this.updatedAt = LocalDateTime.now();
     }
 
     public String getUsername() {
@@ -70,6 +106,7 @@ public class Profile implements Serializable {
 
     public void setUsername(String username) {
         this.username = username;
+        this.updatedAt = LocalDateTime.now();
     }
 
     public String getBio() {
@@ -78,6 +115,7 @@ public class Profile implements Serializable {
 
     public void setBio(String bio) {
         this.bio = bio;
+        this.updatedAt = LocalDateTime.now();
     }
 
     public String getImage() {
@@ -86,14 +124,23 @@ public class Profile implements Serializable {
 
     public void setImage(String image) {
         this.image = image;
+        this.updatedAt = LocalDateTime.now();
+    }
+
+    public int getFollowingCount() {
+        return followingCount;
     }
 
-    public Set<Profile> getFollowing() {
-        return following;
+    public int getFollowersCount() {
+        return followersCount;
     }
 
-    public void setFollowing(Set<Profile> following) {
-        this.following = following;
+    public int getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
     }
 
     public String getPassword() {
@@ -104,17 +151,14 @@ public class Profile implements Serializable {
         this.password = password;
     }
 
-    public void addPublished(Article published) {
-        this.published.add(published);
-    }
-
-    public void removePublished(Article published) {
-        this.published.remove(published);
+    public int getArticlesCount() {
+        return articlesCount;
     }
 
     @Override
     public String toString() {
         return "Profile [email=" + email + ", username=" + username + ", bio=" + bio + ", image=" + image
-                + ", following=" + following.size() + ", published=" + published.size() + "]";
+                + ", followingCount=" + followingCount + ", followersCount=" + followersCount + ", articlesCount="
+                + articlesCount + "]";
     }
 }
@@ -9,6 +9,9 @@ import java.io.Serializable;
 @Entity
 @Table(name = "tags")
 @NamedQuery(name = "Tag.findAll", query = "SELECT t FROM Tag t")
+@NamedQuery(name = "Tag.findTags", query = "SELECT t FROM Tag t WHERE t.tag IN :tags")
+@NamedQuery(name = "Tag.countUsage", query = ""
+        + "SELECT t.tag, COUNT(a) FROM Article a JOIN a.tagList t WHERE a.deletedAt IS NULL GROUP BY t.tag")
 @Schema(name = "tagsExample", type = SchemaType.OBJECT, example =
         "{\n"
                 + "  \"tags\": [\n"
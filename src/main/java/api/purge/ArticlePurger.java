@@ -0,0 +1,92 @@
+package api.purge;
+
+import api.dao.ArticleDAO;
+import api.dao.CommentDAO;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.enterprise.concurrent.ManagedScheduledExecutorService;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.context.control.RequestContextController;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Removes deleted Articles in the background.
+ * <p>
+ * Deleting an Article only marks it as a tombstone, which every read hides. Every
+ * <code>api.purge.interval-seconds</code> this removes the tombstones' Comments and favorites, then their tag links
+ * and the Articles themselves, with bulk deletes of at most <code>api.purge.batch-size</code> rows. Each batch is its
+ * own short transaction, so a heavily commented Article never holds locks for long.
+ */
+@ApplicationScoped
+public class ArticlePurger {
+
+    private static final Logger LOGGER = Logger.getLogger(ArticlePurger.class.getName());
+
+    @Resource
+    private ManagedScheduledExecutorService executor;
+
+    @Inject
+    private RequestContextController requestContext;
+
+    @Inject
+    private ArticleDAO articleDAO;
+
+    @Inject
+    private CommentDAO commentDAO;
+
+    @Inject
+    @ConfigProperty(name = "api.purge.interval-seconds", defaultValue = "60")
+    private long intervalSeconds;
+
+    @Inject
+    @ConfigProperty(name = "api.purge.batch-size", defaultValue = "500")
+    private int batchSize;
+
+    private ScheduledFuture<?> schedule;
+
+    public void start(@Observes @Initialized(ApplicationScoped.class) Object event) {
+        schedule = executor.scheduleWithFixedDelay(this::purge, intervalSeconds, intervalSeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    private void stop() {
+        if (schedule != null) {
+            schedule.cancel(false);
+        }
+    }
+
+    /**
+     * Purges up to a batch of tombstones. Any left over are purged on the next run.
+     */
+    public void purge() {
+        // The DAOs are request scoped, and a scheduled task has no request
+        requestContext.activate();
+        try {
+            List<Integer> tombstones = articleDAO.readTombstoneIds(batchSize);
+            for (int articleId : tombstones) {
+                while (commentDAO.purgeArticleComments(articleId, batchSize) == batchSize) {
+                    // next batch
+                }
+                while (articleDAO.purgeFavorites(articleId, batchSize) == batchSize) {
+                    // next batch
+                }
+                articleDAO.purgeArticle(articleId);
+            }
+        } catch (RuntimeException e) {
+            // Keep the schedule running. Whatever wasn't purged is retried on the next run.
+            LOGGER.log(Level.WARNING, "Purging deleted Articles failed", e);
+        } finally {
+            requestContext.deactivate();
+        }
+    }
+
+}
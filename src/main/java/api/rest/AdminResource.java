@@ -0,0 +1,53 @@
+package api.rest;
+
+import api.hot.HotKeys;
+
+import javax.annotation.security.RolesAllowed;
+import javax.enterprise.context.RequestScoped;
+import javax.inject.Inject;
+import javax.json.Json;
+import javax.json.JsonArrayBuilder;
+import javax.json.JsonObjectBuilder;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A resource for operators, only available to callers in the "admin" group (see <code>api.admin.emails</code>)
+ */
+@RequestScoped
+@Path("system/admin")
+@Produces(MediaType.APPLICATION_JSON)
+@RolesAllowed("admin")
+public class AdminResource {
+
+    @Inject
+    private HotKeys hotKeys;
+
+    /**
+     * @return the most requested Article slugs and Profile usernames, with their estimated recent request counts
+     */
+    @GET
+    @Path("hot")
+    public Response getHotKeys() {
+        JsonObjectBuilder wrapper = Json.createObjectBuilder();
+
+        wrapper.add("articles", buildHotArray(hotKeys.getHotArticles()));
+        wrapper.add("profiles", buildHotArray(hotKeys.getHotProfiles()));
+
+        return Response.ok(wrapper.build()).build();
+    }
+
+    private JsonArrayBuilder buildHotArray(List<Map.Entry<String, Integer>> hot) {
+        JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
+        hot.forEach(entry -> arrayBuilder.add(Json.createObjectBuilder()
+                .add("key", entry.getKey())
+                .add("count", entry.getValue())));
+        return arrayBuilder;
+    }
+
+}
@@ -2,28 +2,65 @@ package api.rest;
 
 import api.dao.ArticleDAO;
 import api.dao.CommentDAO;
+import api.dao.DuplicateKeys;
 import api.dao.ProfileDAO;
+import api.cache.Caller;
+import api.cache.ArticleFlights;
+import api.cache.ArticleFragmentCache;
+import api.cache.CachedList;
+import api.cache.CallerCache;
+import api.cache.ListResponseCache;
+import api.cache.TagRegistry;
 import api.dao.TagDAO;
+import api.dao.ViewDAO;
+import api.events.ArticleEvent;
+import api.hot.HotKeys;
+import api.json.ArticleFragment;
+import api.json.JsonResponses;
+import api.json.StreamingJson;
 import api.model.Article;
 import api.model.Comment;
 import api.model.Profile;
 import api.model.Tag;
+import api.timeline.Timelines;
+import api.utils.ArticleCursor;
+import api.utils.ArticleFields;
+import api.utils.CommentCursor;
+import api.utils.EntityTags;
+import api.view.CommentView;
 import org.eclipse.microprofile.jwt.Claim;
 import org.eclipse.microprofile.jwt.ClaimValue;
 
 import javax.annotation.security.RolesAllowed;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.json.JsonObject;
+import javax.json.JsonString;
+import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
 import javax.ws.rs.*;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 import static api.utils.BuildReturnObject.*;
+import static api.utils.EntityTags.lastModified;
+import static api.utils.EntityTags.matches;
+import static api.utils.EntityTags.notModified;
 
 /**
  * A resource for processing requests related to Users
@@ -41,9 +78,36 @@ public class ArticleResource {
     @Inject
     private CommentDAO commentDAO;
 
+    @Inject
+    private ViewDAO viewDAO;
+
     @Inject
     private TagDAO tagDAO;
 
+    @Inject
+    private TagRegistry tagRegistry;
+
+    @Inject
+    private CallerCache callerCache;
+
+    @Inject
+    private Timelines timelines;
+
+    @Inject
+    private ArticleFragmentCache articleFragments;
+
+    @Inject
+    private ListResponseCache listCache;
+
+    @Inject
+    private ArticleFlights articleFlights;
+
+    @Inject
+    private HotKeys hotKeys;
+
+    @Inject
+    private Event<ArticleEvent> articleEvents;
+
     @Inject
     @Claim("sub")
     private ClaimValue<String> currentUsersName;
@@ -53,45 +117,126 @@ public class ArticleResource {
     private ClaimValue<String> currentUsersEmail;
 
     @GET
+    @Transactional
     @Produces(MediaType.APPLICATION_JSON)
     public Response getListArticles(@HeaderParam("Authorization") String authHeader, @QueryParam("tag") String tag,
                                     @QueryParam("author") String author, @QueryParam("favorited") String favorited,
-                                    @QueryParam("limit") int limit, @QueryParam("offset") int offset) {
+                                    @QueryParam("limit") int limit, @QueryParam("offset") int offset,
+                                    @QueryParam("cursor") String cursor, @QueryParam("fields") String fields,
+                                    @HeaderParam("If-None-Match") String ifNoneMatch) {
+
+        ArticleCursor after;
+        ArticleFields selected;
+        try {
+            after = ArticleCursor.decode(cursor);
+            selected = ArticleFields.parse(fields, ArticleFields.LIST);
+        } catch (IllegalArgumentException e) {
+            return Response.status(422).entity(buildErrorObject(e.getLocalizedMessage())).build();
+        }
 
-        List<Article> articles = articleDAO.readListArticles(tag, author, favorited, limit, offset);
+        Caller currentUser = getCurrentUser();
+        if (currentUser == null) {
+            // Anonymous lists are the same for everyone, so they're shared as encoded bytes
+            ListResponseCache.Key key = new ListResponseCache.Key(tag, author, favorited, limit, offset, cursor,
+                    selected.getMask());
+            CachedList list = listCache.get(key,
+                    () -> readAnonymousList(tag, author, favorited, limit, offset, after, selected));
+            if (matches(ifNoneMatch, list.getEtag())) {
+                return Response.notModified(list.getEtag()).lastModified(list.getLastModified()).build();
+            }
+            StreamingJson articlesObject = out -> out.write(list.getBody());
+            return Response.ok(articlesObject).tag(list.getEtag()).lastModified(list.getLastModified()).build();
+        }
 
-        Profile currentUser = getCurrentUser();
-        JsonObject articlesObject = buildArticlesObject(articles, currentUser);
+        List<Article> articles = articleDAO.readListArticles(tag, author, favorited, limit, offset, after, selected);
 
-        return Response.ok(articlesObject).build();
+        return articlesResponse(articles, currentUser, limit, selected, ifNoneMatch);
     }
 
     @GET
     @Path("/feed")
     @RolesAllowed("user")
+    @Transactional
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getFeedArticles(@HeaderParam("Authorization") String authHeader, @QueryParam("limit") int limit,
-                                    @QueryParam("offset") int offset) {
+    public Response getFeedArticles(@HeaderParam("Authorization") String authHeader,
+                                    @DefaultValue("20") @QueryParam("limit") int limit,
+                                    @QueryParam("offset") int offset, @QueryParam("cursor") String cursor,
+                                    @QueryParam("fields") String fields,
+                                    @HeaderParam("If-None-Match") String ifNoneMatch) {
+
+        // Checked here, as a timeline buffer and the database query would otherwise answer differently
+        if (limit <= 0) {
+            return Response.status(422).entity(buildErrorObject("limit must be greater than 0")).build();
+        }
+        if (offset < 0) {
+            return Response.status(422).entity(buildErrorObject("offset can't be negative")).build();
+        }
 
-        Profile currentUser = getCurrentUser();
-        List<Article> articles = articleDAO.readFeedArticles(currentUser.getUsername());
+        ArticleCursor after;
+        ArticleFields selected;
+        try {
+            after = ArticleCursor.decode(cursor);
+            selected = ArticleFields.parse(fields, ArticleFields.LIST);
+        } catch (IllegalArgumentException e) {
+            return Response.status(422).entity(buildErrorObject(e.getLocalizedMessage())).build();
+        }
 
-        JsonObject articlesObject = buildArticlesObject(articles, currentUser);
+        Caller currentUser = getCurrentUser();
+        List<Article> articles = timelines.readFeed(currentUser.getUsername(), currentUser.getEmail(), limit, offset,
+                after, selected);
 
-        return Response.ok(articlesObject).build();
+        return articlesResponse(articles, currentUser, limit, selected, ifNoneMatch);
     }
 
     @GET
     @Path("/{slug}")
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getArticle(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
+    public Response getArticle(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug,
+                               @HeaderParam("If-None-Match") String ifNoneMatch,
+                               @HeaderParam("If-Modified-Since") String ifModifiedSince) {
+
+        Caller currentUser = getCurrentUser();
+        hotKeys.recordArticle(slug);
+
+        if (ifNoneMatch != null || ifModifiedSince != null) {
+            // Checked against a projection first, so a current copy never loads the Article
+            Object[] validators = articleDAO.readArticleValidators(slug);
+            if (validators != null) {
+                int articleId = (Integer) validators[0];
+                EntityTag etag = EntityTags.of(articleId, validators[1], validators[2], validators[5],
+                        currentUser != null && articleDAO.isFavoritedBy(articleId, currentUser.getEmail()),
+                        currentUser != null && currentUser.isFollowing((String) validators[4]));
+                Date lastModified = currentUser == null
+                        ? lastModified((LocalDateTime) validators[3], (LocalDateTime) validators[6])
+                        : null;
+                if (notModified(ifNoneMatch, ifModifiedSince, etag, lastModified)) {
+                    return Response.notModified(etag).lastModified(lastModified).build();
+                }
+            }
+        }
 
-        Article article = articleDAO.readArticleBySlug(slug);
+        // Concurrent reads of the same Article share one load and encoding. Only the flags are read per caller.
+        ArticleFragment fragment = articleFlights.read(slug, () -> {
+            Article article = articleDAO.readArticleBySlug(slug);
+            return article == null ? null : articleFragments.get(article);
+        });
+        if (fragment == null) {
+            throw new NotFoundException();
+        }
 
-        Profile currentUser = getCurrentUser();
-        JsonObject newArticleObject = buildArticleObject(article, currentUser);
+        boolean favorited = currentUser != null
+                && articleDAO.isFavoritedBy(fragment.getArticleId(), currentUser.getEmail());
+        EntityTag etag = EntityTags.of(fragment.getArticleId(), fragment.getVersion(), fragment.getFavoritesCount(),
+                fragment.getAuthorVersion(), favorited,
+                currentUser != null && currentUser.isFollowing(fragment.getAuthorEmail()));
+        // favorited and following aren't covered by any time, so only anonymous copies are validated by date
+        Date lastModified = currentUser == null
+                ? lastModified(fragment.getChangedAt(), fragment.getAuthorUpdatedAt())
+                : null;
 
-        return Response.ok(newArticleObject).build();
+        StreamingJson newArticleObject = JsonResponses.article(fragment, currentUser, favorited);
+
+        return Response.ok(newArticleObject).tag(etag).lastModified(lastModified).build();
     }
 
     @POST
@@ -110,14 +255,17 @@ public class ArticleResource {
 
         Set<Tag> tagList = buildTagList(articleObject);
 
-        Profile currentUser = getCurrentUser();
-        Article newArticle = new Article(title, description, body, tagList, currentUser);
+        Caller currentUser = getCurrentUser();
+        Profile author = profileDAO.referenceProfile(currentUser.getEmail());
+        Article newArticle = new Article(title, description, body, tagList, author);
 
+        // Authorship is only the articleAuthor column, so this costs the same however much the author has written
         articleDAO.createArticle(newArticle);
-        currentUser.addPublished(newArticle);
-        profileDAO.updateProfile(currentUser);
+        profileDAO.updateArticlesCount(currentUser.getEmail(), 1);
+        articleEvents.fire(new ArticleEvent(ArticleEvent.Type.CREATED, newArticle.getId(), currentUser.getEmail(),
+                newArticle.getCreatedAt(), newArticle.getSlug(), tagNames(newArticle)));
 
-        JsonObject newArticleObject = buildArticleObject(newArticle, currentUser);
+        StreamingJson newArticleObject = JsonResponses.article(newArticle, currentUser, false);
 
         return Response.ok(newArticleObject).build();
 
@@ -139,7 +287,7 @@ public class ArticleResource {
         String description = articleObject.getString("description", null);
         String body = articleObject.getString("body", null);
 
-        Article newArticle = articleDAO.readArticleBySlug(slug);
+        Article newArticle = readArticle(slug);
 
         if (title != null && !title.equals("")) {
             newArticle.setTitle(title);
@@ -152,11 +300,13 @@ public class ArticleResource {
         }
 
         articleDAO.updateArticle(newArticle);
-        newArticle = articleDAO.readArticleBySlug(slug);
+        articleEvents.fire(new ArticleEvent(ArticleEvent.Type.UPDATED, newArticle.getId(),
+                newArticle.getAuthor().getEmail(), newArticle.getCreatedAt(), slug, tagNames(newArticle)));
 
-        Profile currentUser = getCurrentUser();
+        Caller currentUser = getCurrentUser();
 
-        JsonObject newArticleObject = buildArticleObject(newArticle, currentUser);
+        StreamingJson newArticleObject = JsonResponses.article(newArticle, currentUser,
+                isFavorited(newArticle, currentUser));
 
         return Response.ok(newArticleObject).build();
     }
@@ -166,16 +316,15 @@ public class ArticleResource {
     @RolesAllowed("user")
     @Transactional
     public Response deleteArticle(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
-        Article article = articleDAO.readArticleBySlug(slug);
-        articleDAO.deleteArticle(article);
+        Article article = readArticle(slug);
 
-        Profile author = article.getAuthor();
-        author.removePublished(article);
-        profileDAO.updateProfile(author);
+        // Only mark it deleted. ArticlePurger removes its rows, Comments and favorites in the background.
+        article.markDeleted();
+        articleDAO.updateArticle(article);
+        profileDAO.updateArticlesCount(article.getAuthor().getEmail(), -1);
 
-        for (Comment comment : article.getComments()) {
-            commentDAO.deleteComment(comment);
-        }
+        articleEvents.fire(new ArticleEvent(ArticleEvent.Type.DELETED, article.getId(),
+                article.getAuthor().getEmail(), article.getCreatedAt(), slug, tagNames(article)));
 
         return Response.ok().build();
     }
@@ -193,16 +342,14 @@ public class ArticleResource {
         if (commentBody == null) {
             return Response.status(422).entity(buildErrorObject("Comment body cannot be empty")).build();
         }
-        Profile author = getCurrentUser();
-        Article article = articleDAO.readArticleBySlug(slug);
+        Caller currentUser = getCurrentUser();
+        Profile author = profileDAO.referenceProfile(currentUser.getEmail());
+        Article article = readArticle(slug);
         Comment newComment = new Comment(author, commentBody, article);
 
         commentDAO.createComment(newComment);
 
-        article.addComment(newComment);
-        articleDAO.updateArticle(article);
-
-        JsonObject commentObject = buildCommentObject(newComment, author);
+        StreamingJson commentObject = JsonResponses.comment(newComment, currentUser);
 
         return Response.ok(commentObject).build();
     }
@@ -211,16 +358,49 @@ public class ArticleResource {
     @Path("/{slug}/comments")
     @Transactional
     @Produces(MediaType.APPLICATION_JSON)
-    public Response getComments(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
+    public Response getComments(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug,
+                                @QueryParam("limit") int limit, @QueryParam("cursor") String cursor,
+                                @QueryParam("since") String since,
+                                @HeaderParam("If-None-Match") String ifNoneMatch) {
+
+        hotKeys.recordArticle(slug);
+        Article article = readArticle(slug);
+
+        CommentCursor after;
+        try {
+            after = since == null || since.isEmpty() ? CommentCursor.decode(cursor) : since(article, since);
+        } catch (IllegalArgumentException e) {
+            return Response.status(422).entity(buildErrorObject(e.getLocalizedMessage())).build();
+        }
 
-        Article article = articleDAO.readArticleBySlug(slug);
-        Set<Comment> articleComments = article.getComments();
+        Caller currentUser = getCurrentUser();
 
-        Profile currentUser = getCurrentUser();
+        // Validated against every Comment on the Article, so a current anonymous copy never loads any of them. The
+        // following flags only depend on who wrote the page, so an authenticated copy is validated after reading it.
+        Object[] validators = commentDAO.readCommentValidators(article);
+        List<CommentView> articleComments = null;
+        List<String> followedAuthors = Collections.emptyList();
+        if (currentUser != null) {
+            articleComments = viewDAO.readArticleComments(article, limit, after);
+            followedAuthors = followedAuthors(articleComments, currentUser);
+        }
+        EntityTag etag = EntityTags.of(article.getId(), validators[0], validators[1], validators[2], validators[3],
+                followedAuthors);
+        Date lastModified = lastModified((LocalDateTime) validators[4], (LocalDateTime) validators[5]);
+        if (matches(ifNoneMatch, etag)) {
+            return Response.notModified(etag).lastModified(lastModified).build();
+        }
 
-        JsonObject commentObject = buildCommentsObject(articleComments, currentUser);
+        if (articleComments == null) {
+            articleComments = viewDAO.readArticleComments(article, limit, after);
+        }
 
-        return Response.ok(commentObject).build();
+        String nextCursor = limit > 0 && articleComments.size() == limit
+                ? CommentCursor.of(articleComments.get(articleComments.size() - 1)).encode()
+                : null;
+        StreamingJson commentObject = JsonResponses.comments(articleComments, currentUser, nextCursor);
+
+        return Response.ok(commentObject).tag(etag).lastModified(lastModified).build();
     }
 
     @DELETE
@@ -230,13 +410,11 @@ public class ArticleResource {
     public Response deleteComment(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug,
                                   @PathParam("id") int commentId) {
 
-        Article article = articleDAO.readArticleBySlug(slug);
+        Article article = readArticle(slug);
         Comment comment = commentDAO.readComment(commentId);
 
-        if (article.getComments().contains(comment)) {
+        if (comment != null && comment.getArticle().getId() == article.getId()) {
             commentDAO.deleteComment(comment);
-            article.removeComment(comment);
-            articleDAO.updateArticle(article);
         } else {
             return Response.status(422).entity(buildErrorObject("The Comment does not belong to the given Article"))
                     .build();
@@ -251,13 +429,26 @@ public class ArticleResource {
     @Transactional
     @Produces(MediaType.APPLICATION_JSON)
     public Response favoriteArticle(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
-        Article article = articleDAO.readArticleBySlug(slug);
-        Profile currentUser = getCurrentUser();
-
-        article.addFavoritedBy(currentUser);
-        articleDAO.updateArticle(article);
+        Article article = readArticle(slug);
+        Caller currentUser = getCurrentUser();
+
+        boolean added;
+        try {
+            added = articleDAO.addFavorite(article.getId(), currentUser.getEmail());
+        } catch (PersistenceException e) {
+            if (!DuplicateKeys.isDuplicateKey(e)) {
+                throw e;
+            }
+            added = false; // An identical request committed the same favorite first
+        }
+        articleDAO.refreshArticle(article); // for the favoritesCount committed by addFavorite
+        if (added) {
+            articleEvents.fire(new ArticleEvent(ArticleEvent.Type.FAVORITED, article.getId(),
+                    article.getAuthor().getEmail(), article.getCreatedAt(), slug, tagNames(article),
+                    currentUser.getUsername()));
+        }
 
-        JsonObject articleObject = buildArticleObject(article, currentUser);
+        StreamingJson articleObject = JsonResponses.article(article, currentUser, true);
 
         return Response.ok(articleObject).build();
     }
@@ -268,46 +459,215 @@ public class ArticleResource {
     @Transactional
     @Produces(MediaType.APPLICATION_JSON)
     public Response unfavoriteArticle(@HeaderParam("Authorization") String authHeader, @PathParam("slug") String slug) {
+        Article article = readArticle(slug);
+        Caller currentUser = getCurrentUser();
+
+        if (articleDAO.removeFavorite(article, currentUser.getEmail())) {
+            articleDAO.updateFavoritesCount(article, -1);
+            articleEvents.fire(new ArticleEvent(ArticleEvent.Type.UNFAVORITED, article.getId(),
+                    article.getAuthor().getEmail(), article.getCreatedAt(), slug, tagNames(article),
+                    currentUser.getUsername()));
+        }
+
+        StreamingJson articleObject = JsonResponses.article(article, currentUser, false);
+
+        return Response.ok(articleObject).build();
+    }
+
+    /**
+     * @throws NotFoundException if no Article has the slug, or it has been deleted
+     */
+    private Article readArticle(String slug) {
         Article article = articleDAO.readArticleBySlug(slug);
-        Profile currentUser = getCurrentUser();
+        if (article == null) {
+            throw new NotFoundException();
+        }
+        return article;
+    }
 
-        article.removeFavoritedBy(currentUser);
-        articleDAO.updateArticle(article);
+    /**
+     * @return the user sending the request, from the CallerCache. null if not authenticated.
+     */
+    private Caller getCurrentUser() {
+        return callerCache.getCaller(currentUsersName.getValue(), currentUsersEmail.getValue());
+    }
+
+    /**
+     * @return the ids of the given Articles favorited by currentUser, read without loading any favoritedBy collection
+     */
+    private Set<Integer> readFavoritedIds(List<Article> articles, Caller currentUser) {
+        if (currentUser == null) {
+            return Collections.emptySet();
+        }
+        List<Integer> articleIds = new ArrayList<>(articles.size());
+        articles.forEach(article -> articleIds.add(article.getId()));
+        return articleDAO.readFavoritedArticleIds(currentUser.getEmail(), articleIds);
+    }
 
-        JsonObject articleObject = buildArticleObject(article, currentUser);
+    /**
+     * Answers a page of Articles, or 304 if ifNoneMatch still matches it, before any of it is encoded.
+     * <p>
+     * Last-Modified is only informational here. A deleted Article leaves the page without making anything on it newer,
+     * so If-Modified-Since isn't evaluated.
+     */
+    private Response articlesResponse(List<Article> articles, Caller currentUser, int limit, ArticleFields fields,
+                                      String ifNoneMatch) {
+        Set<Integer> favoritedIds = readFavoritedIds(articles, currentUser);
+        String nextCursor = nextCursor(articles, limit);
+
+        EntityTag etag = articlesTag(articles, currentUser, favoritedIds, nextCursor, fields);
+        Date lastModified = articlesLastModified(articles);
+        articles.forEach(article -> hotKeys.recordArticle(article.getSlug()));
+        if (matches(ifNoneMatch, etag)) {
+            return Response.notModified(etag).lastModified(lastModified).build();
+        }
 
-        return Response.ok(articleObject).build();
+        StreamingJson articlesObject = JsonResponses.articles(articleFragments.get(articles, fields), currentUser,
+                favoritedIds, nextCursor);
+
+        return Response.ok(articlesObject).tag(etag).lastModified(lastModified).build();
     }
 
     /**
-     * @return the Profile of the user sending the request. null if not authenticated.
+     * Reads and encodes a list for ListResponseCache, as it would be answered to any anonymous caller.
      */
-    private Profile getCurrentUser() {
-        String currentUsersName = this.currentUsersName.getValue();
-        return currentUsersName == null ? null : profileDAO.findProfileByUsername(currentUsersName);
+    private CachedList readAnonymousList(String tag, String author, String favorited, int limit, int offset,
+                                         ArticleCursor after, ArticleFields fields) {
+        List<Article> articles = articleDAO.readListArticles(tag, author, favorited, limit, offset, after, fields);
+        Set<Integer> favoritedIds = Collections.emptySet();
+        String nextCursor = nextCursor(articles, limit);
+        articles.forEach(article -> hotKeys.recordArticle(article.getSlug()));
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        try {
+            JsonResponses.articles(articleFragments.get(articles, fields), null, favoritedIds, nextCursor).writeTo(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // not thrown by a ByteArrayOutputStream
+        }
+        return new CachedList(body.toByteArray(), articlesTag(articles, null, favoritedIds, nextCursor, fields),
+                articlesLastModified(articles), articles, after != null);
     }
 
-    /*
-     * This is awful. Would be happy to hear if there's a better way to turn JsonArray -> Set<Tag>
+    /**
+     * @return an ETag covering everything written for each Article on the page, the next cursor and the fields written
      */
-    private Set<Tag> buildTagList(JsonObject articleObject) {
-        Set<Tag> tagList = new HashSet<>();
+    private EntityTag articlesTag(List<Article> articles, Caller currentUser, Set<Integer> favoritedIds,
+                                  String nextCursor, ArticleFields fields) {
+        List<Object> parts = new ArrayList<>(articles.size() * 6 + 2);
+        for (Article article : articles) {
+            parts.add(article.getId());
+            parts.add(article.getVersion());
+            parts.add(article.getFavoritesCount());
+            parts.add(article.getAuthor().getVersion());
+            parts.add(favoritedIds.contains(article.getId()));
+            parts.add(currentUser != null && currentUser.isFollowing(article.getAuthor()));
+        }
+        parts.add(nextCursor);
+        parts.add(fields.getMask());
+        return EntityTags.of(parts.toArray());
+    }
 
-        articleObject.getJsonArray("tagList").forEach((tagJson) -> {
+    private static Date articlesLastModified(List<Article> articles) {
+        LocalDateTime[] times = new LocalDateTime[articles.size() * 2];
+        for (int i = 0; i < articles.size(); i++) {
+            times[2 * i] = articles.get(i).getChangedAt();
+            times[2 * i + 1] = articles.get(i).getAuthor().getUpdatedAt();
+        }
+        return lastModified(times);
+    }
 
-            String tag = tagJson.toString();
-            tag = tag.substring(1, tag.length() - 1); // Trim off the quotes, e.g. "example" -> example
+    /**
+     * @return the emails of the page's commenters currentUser follows, once each and in order
+     */
+    private static List<String> followedAuthors(List<CommentView> comments, Caller currentUser) {
+        return comments.stream()
+                .map(CommentView::getAuthorEmail)
+                .distinct()
+                .filter(currentUser::isFollowing)
+                .sorted()
+                .collect(Collectors.toList());
+    }
 
-            Tag tagObject = tagDAO.readTag(tag); // See if the Tag already exists
+    private boolean isFavorited(Article article, Caller currentUser) {
+        return currentUser != null && articleDAO.isFavoritedBy(article, currentUser.getEmail());
+    }
 
-            if (tagObject == null) { // If the Tag doesn't already exist, add it to the database
-                tagObject = new Tag(tag);
-                tagDAO.createTag(tagObject);
+    /**
+     * @param since the id of a Comment on the Article, or a time formatted like a Comment's createdAt
+     * @return a cursor matching the Comments newer than since
+     * @throws IllegalArgumentException if since is neither
+     */
+    private CommentCursor since(Article article, String since) {
+        if (since.chars().allMatch(Character::isDigit)) {
+            Comment comment = commentDAO.readComment(Integer.parseInt(since));
+            if (comment == null || comment.getArticle().getId() != article.getId()) {
+                throw new IllegalArgumentException("The Comment " + since + " does not belong to the given Article");
             }
-            tagList.add(tagObject);
+            return CommentCursor.of(comment);
+        }
+        try {
+            return CommentCursor.after(LocalDateTime.parse(since.endsWith("Z")
+                    ? since.substring(0, since.length() - 1)
+                    : since));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid since: " + since, e);
+        }
+    }
 
-        });
+    /**
+     * @return the cursor of the last Article on a full page. null if there are no more pages.
+     */
+    private String nextCursor(List<Article> articles, int limit) {
+        if (limit <= 0 || articles.size() < limit) {
+            return null;
+        }
+        return ArticleCursor.of(articles.get(articles.size() - 1)).encode();
+    }
+
+    private Set<String> tagNames(Article article) {
+        Set<String> tagNames = new HashSet<>();
+        article.getTagList().forEach(tag -> tagNames.add(tag.getTag()));
+        return tagNames;
+    }
 
+    /**
+     * Resolves the Article's tagList to Tags, creating any that don't exist yet.
+     * <p>
+     * Tags already in the TagRegistry cost no queries. The rest are looked up with one <code>IN</code> query, and any
+     * still missing are inserted with one statement.
+     */
+    private Set<Tag> buildTagList(JsonObject articleObject) {
+        Set<String> tags = new LinkedHashSet<>();
+        if (articleObject.containsKey("tagList") && !articleObject.isNull("tagList")) {
+            articleObject.getJsonArray("tagList").getValuesAs(JsonString.class)
+                    .forEach(tag -> tags.add(tag.getString()));
+        }
+
+        Set<String> unknownTags = tagRegistry.unknown(tags);
+        if (!unknownTags.isEmpty()) {
+            tagDAO.readTags(unknownTags).forEach(tag -> tagRegistry.register(tag.getTag()));
+
+            Set<String> newTags = tagRegistry.unknown(unknownTags);
+            if (!newTags.isEmpty()) {
+                try {
+                    tagDAO.createTags(newTags);
+                } catch (PersistenceException e) {
+                    if (!DuplicateKeys.isDuplicateKey(e)) {
+                        throw e;
+                    }
+                    // A concurrent request committed some of the same tags first, so only insert the rest, once
+                    tagDAO.readTags(newTags).forEach(tag -> tagRegistry.register(tag.getTag()));
+                    Set<String> stillNew = tagRegistry.unknown(newTags);
+                    if (!stillNew.isEmpty()) {
+                        tagDAO.createTags(stillNew);
+                    }
+                }
+                newTags.forEach(tagRegistry::register);
+            }
+        }
+
+        Set<Tag> tagList = new HashSet<>();
+        tags.forEach(tag -> tagList.add(tagDAO.referenceTag(tagRegistry.intern(tag))));
         return tagList;
     }
 
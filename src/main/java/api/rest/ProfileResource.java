@@ -1,21 +1,35 @@
 package api.rest;
 
+import api.cache.Caller;
+import api.cache.CallerCache;
+import api.dao.DuplicateKeys;
 import api.dao.ProfileDAO;
+import api.dao.ViewDAO;
+import api.events.ProfileEvent;
+import api.hot.HotKeys;
+import api.json.JsonResponses;
+import api.json.StreamingJson;
 import api.model.Profile;
+import api.utils.EntityTags;
+import api.view.ProfileView;
 import org.eclipse.microprofile.jwt.Claim;
 import org.eclipse.microprofile.jwt.ClaimValue;
 
 import javax.annotation.security.RolesAllowed;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
-import javax.json.JsonObject;
+import javax.persistence.PersistenceException;
 import javax.transaction.Transactional;
 import javax.ws.rs.*;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
-import java.util.Set;
+import java.util.Date;
+
+import static api.utils.EntityTags.lastModified;
+import static api.utils.EntityTags.notModified;
 
-import static api.utils.BuildReturnObject.buildProfileObject;
 
 /**
  * A resource for processing requests related to Users
@@ -28,6 +42,18 @@ public class ProfileResource {
     @Inject
     private ProfileDAO profileDAO;
 
+    @Inject
+    private ViewDAO viewDAO;
+
+    @Inject
+    private CallerCache callerCache;
+
+    @Inject
+    private HotKeys hotKeys;
+
+    @Inject
+    private Event<ProfileEvent> profileEvents;
+
     @Inject
     @Claim("sub")
     private ClaimValue<String> currentUsersName;
@@ -39,18 +65,28 @@ public class ProfileResource {
     @GET
     @Path("{username}")
     public Response getProfile(@HeaderParam("Authorization") String authHeader,
-                               @PathParam("username") String username) {
+                               @PathParam("username") String username,
+                               @HeaderParam("If-None-Match") String ifNoneMatch,
+                               @HeaderParam("If-Modified-Since") String ifModifiedSince) {
 
-        Profile profile = profileDAO.findProfileByUsername(username);
+        hotKeys.recordProfile(username);
+        ProfileView profile = viewDAO.readProfileByUsername(username);
 
-        Profile currentUser = null;
+        Caller currentUser = null;
         if (authHeader != null) {
-            currentUser = profileDAO.readProfile(currentUsersEmail.getValue());
+            currentUser = callerCache.getCaller(currentUsersName.getValue(), currentUsersEmail.getValue());
         }
 
-        JsonObject profileObject = buildProfileObject(profile, currentUser);
+        EntityTag etag = EntityTags.of(profile.getVersion(), currentUser != null && currentUser.isFollowing(profile.getEmail()));
+        // following isn't covered by updatedAt, so only anonymous copies are validated by date
+        Date lastModified = currentUser == null ? lastModified(profile.getUpdatedAt()) : null;
+        if (notModified(ifNoneMatch, ifModifiedSince, etag, lastModified)) {
+            return Response.notModified(etag).lastModified(lastModified).build();
+        }
 
-        return Response.ok(profileObject).build();
+        StreamingJson profileObject = JsonResponses.profile(profile, currentUser);
+
+        return Response.ok(profileObject).tag(etag).lastModified(lastModified).build();
     }
 
     @POST
@@ -61,17 +97,23 @@ public class ProfileResource {
                                @PathParam("username") String username) {
 
         Profile profile = profileDAO.findProfileByUsername(username);
-        Profile currentUser = profileDAO.readProfile(currentUsersEmail.getValue());
-
-        Set<Profile> following = currentUser.getFollowing();
-
-        if (!following.contains(profile)) {
-            following.add(profile);
-            currentUser.setFollowing(following);
-            profileDAO.updateProfile(currentUser);
+        String followerEmail = currentUsersEmail.getValue();
+
+        boolean followed;
+        try {
+            followed = profileDAO.follow(followerEmail, profile.getEmail());
+        } catch (PersistenceException e) {
+            if (!DuplicateKeys.isDuplicateKey(e)) {
+                throw e;
+            }
+            followed = false; // An identical request committed the same follow first
+        }
+        if (followed) {
+            profileEvents.fire(new ProfileEvent(ProfileEvent.Type.FOLLOWED, followerEmail, profile.getEmail()));
         }
 
-        JsonObject profileObject = buildProfileObject(profile, currentUser);
+        // The FollowGraph only sees the follow once it commits
+        StreamingJson profileObject = JsonResponses.profile(profile, true);
 
         return Response.ok(profileObject).build();
     }
@@ -84,17 +126,13 @@ public class ProfileResource {
                                  @PathParam("username") String username) {
 
         Profile profile = profileDAO.findProfileByUsername(username);
-        Profile currentUser = profileDAO.readProfile(currentUsersEmail.getValue());
-
-        Set<Profile> following = currentUser.getFollowing();
+        String followerEmail = currentUsersEmail.getValue();
 
-        if (following.contains(profile)) {
-            following.remove(profile);
-            currentUser.setFollowing(following);
-            profileDAO.updateProfile(currentUser);
+        if (profileDAO.unfollow(followerEmail, profile.getEmail())) {
+            profileEvents.fire(new ProfileEvent(ProfileEvent.Type.UNFOLLOWED, followerEmail, profile.getEmail()));
         }
 
-        JsonObject profileObject = buildProfileObject(profile, currentUser);
+        StreamingJson profileObject = JsonResponses.profile(profile, false);
 
         return Response.ok(profileObject).build();
     }
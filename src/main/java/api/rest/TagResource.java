@@ -1,7 +1,7 @@
 package api.rest;
 
-import api.dao.TagDAO;
-import api.model.Tag;
+import api.cache.TagCache;
+import api.utils.EntityTags;
 
 import javax.enterprise.context.RequestScoped;
 import javax.inject.Inject;
@@ -10,12 +10,17 @@ import javax.json.JsonArrayBuilder;
 import javax.json.JsonObjectBuilder;
 import javax.transaction.Transactional;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.Path;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 import java.util.List;
 
+import static api.utils.EntityTags.matches;
+
 /**
  * A resource for processing requests related to Tags
  */
@@ -25,24 +30,30 @@ import java.util.List;
 public class TagResource {
 
     @Inject
-    private TagDAO tagDAO;
+    private TagCache tagCache;
 
+    /**
+     * @param limit if greater than 0, only the limit most used tags are returned
+     */
     @GET
     @Transactional
-    public Response getTags() {
+    public Response getTags(@QueryParam("limit") int limit, @HeaderParam("If-None-Match") String ifNoneMatch) {
+
+        List<String> tags = tagCache.getTags(limit);
 
-        List<Tag> allTags = tagDAO.readAllTags();
+        EntityTag etag = EntityTags.of(tags.toArray());
+        if (matches(ifNoneMatch, etag)) {
+            return Response.notModified(etag).build();
+        }
 
         JsonObjectBuilder wrapper = Json.createObjectBuilder();
         JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
 
-        allTags.forEach(tag -> {
-            arrayBuilder.add(tag.getTag());
-        });
+        tags.forEach(arrayBuilder::add);
 
         wrapper.add("tags", arrayBuilder.build());
 
-        return Response.ok(wrapper.build()).build();
+        return Response.ok(wrapper.build()).tag(etag).build();
     }
 
-}
\ No newline at end of file
+}
@@ -1,6 +1,9 @@
 package api.rest;
 
+import api.cache.Caller;
+import api.cache.CallerCache;
 import api.dao.ProfileDAO;
+import api.events.ProfileEvent;
 import api.model.Profile;
 import org.eclipse.microprofile.jwt.Claim;
 import org.eclipse.microprofile.jwt.ClaimValue;
@@ -12,6 +15,7 @@ import org.eclipse.microprofile.openapi.annotations.responses.APIResponses;
 
 import javax.annotation.security.RolesAllowed;
 import javax.enterprise.context.RequestScoped;
+import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import javax.json.JsonObject;
 import javax.transaction.Transactional;
@@ -32,6 +36,12 @@ public class UserResource {
     @Inject
     private ProfileDAO profileDAO;
 
+    @Inject
+    private CallerCache callerCache;
+
+    @Inject
+    private Event<ProfileEvent> profileEvents;
+
     @Inject
     @Claim("sub")
     private ClaimValue<String> currentUsersName;
@@ -48,9 +58,9 @@ public class UserResource {
     @Transactional
     public Response getCurrentUser(@HeaderParam("Authorization") String authHeader) {
 
-        Profile profile = profileDAO.readProfile(currentUsersEmail.getValue());
+        Caller caller = callerCache.getCaller(currentUsersName.getValue(), currentUsersEmail.getValue());
 
-        JsonObject userObject = buildUserObject(profile, authHeader);
+        JsonObject userObject = buildUserObject(caller, authHeader);
 
         return Response.ok(userObject).build();
     }
@@ -92,6 +102,7 @@ public class UserResource {
         }
 
         profileDAO.updateProfile(newUser);
+        profileEvents.fire(new ProfileEvent(ProfileEvent.Type.UPDATED, currentUsersEmail.getValue(), null));
         newUser = profileDAO.readProfile(currentUsersEmail.getValue());
 
         JsonObject userObjectBuilt = buildUserObject(newUser, authHeader);
@@ -0,0 +1,134 @@
+package api.timeline;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+/**
+ * A bounded list of Article ids, newest first, held in a ring of parallel primitive arrays.
+ * <p>
+ * Entries are ordered by (createdAt, id), the same key as the feed query and ArticleCursor. New Articles almost
+ * always belong at the head, which is O(1); an out of order arrival is shifted into place. Once full, adding an entry
+ * drops the oldest one, and the buffer is marked truncated: it no longer holds the whole timeline. Not thread safe.
+ */
+public class TimelineBuffer {
+
+    private final long[] createdAt; // see key(LocalDateTime)
+    private final int[] ids;
+    private int head; // the slot of the newest entry
+    private int size;
+    private boolean truncated;
+
+    public TimelineBuffer(int capacity) {
+        createdAt = new long[capacity];
+        ids = new int[capacity];
+    }
+
+    /**
+     * @return createdAt as nanoseconds since the epoch, ordered the same way as the LocalDateTime
+     */
+    public static long key(LocalDateTime createdAt) {
+        return createdAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + createdAt.getNano();
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return true if entries older than the oldest one held may exist
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    public void setTruncated(boolean truncated) {
+        this.truncated = truncated;
+    }
+
+    public void add(LocalDateTime createdAt, int id) {
+        long key = key(createdAt);
+        int capacity = ids.length;
+        // Find how many entries are newer than the new one
+        int position = 0;
+        while (position < size && compare(position, key, id) > 0) {
+            position++;
+        }
+        if (position == capacity) {
+            truncated = true; // Older than everything in a full buffer
+            return;
+        }
+        if (position < size && this.ids[slot(position)] == id) {
+            return;
+        }
+        if (size == capacity) {
+            truncated = true; // The oldest entry is overwritten by the shift below
+        } else {
+            size++;
+        }
+        head = (head - 1 + capacity) % capacity;
+        for (int i = 0; i < position; i++) { // Shift the newer entries towards the head
+            this.createdAt[slot(i)] = this.createdAt[slot(i + 1)];
+            this.ids[slot(i)] = this.ids[slot(i + 1)];
+        }
+        this.createdAt[slot(position)] = key;
+        this.ids[slot(position)] = id;
+    }
+
+    public void remove(int id) {
+        for (int position = 0; position < size; position++) {
+            if (ids[slot(position)] == id) {
+                for (int i = position; i < size - 1; i++) {
+                    createdAt[slot(i)] = createdAt[slot(i + 1)];
+                    ids[slot(i)] = ids[slot(i + 1)];
+                }
+                size--;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return up to limit ids, starting offset entries from the newest
+     */
+    public int[] ids(int offset, int limit) {
+        int from = Math.min(Math.max(offset, 0), size);
+        int to = Math.min(from + limit, size);
+        int[] result = new int[to - from];
+        for (int i = from; i < to; i++) {
+            result[i - from] = ids[slot(i)];
+        }
+        return result;
+    }
+
+    /**
+     * @return up to limit ids of the entries strictly older than (createdAt, id)
+     */
+    public int[] idsBefore(LocalDateTime createdAt, int id, int limit) {
+        long key = key(createdAt);
+        int from = 0;
+        while (from < size && compare(from, key, id) >= 0) {
+            from++;
+        }
+        return ids(from, limit);
+    }
+
+    /**
+     * @return positive if the entry at position is newer than (key, id), negative if it's older, 0 if it's the same
+     */
+    private int compare(int position, long key, int id) {
+        int slot = slot(position);
+        int result = Long.compare(createdAt[slot], key);
+        return result != 0 ? result : Integer.compare(ids[slot], id);
+    }
+
+    private int slot(int position) {
+        return (head + position) % ids.length;
+    }
+
+    @Override
+    public String toString() {
+        return Arrays.toString(ids(0, size)) + (truncated ? "..." : "");
+    }
+
+}
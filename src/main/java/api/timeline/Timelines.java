@@ -0,0 +1,204 @@
+package api.timeline;
+
+import api.cache.BoundedCache;
+import api.dao.ArticleDAO;
+import api.events.ArticleEvent;
+import api.events.ProfileEvent;
+import api.graph.FollowGraph;
+import api.model.Article;
+import api.utils.ArticleCursor;
+import api.utils.ArticleFields;
+import org.eclipse.microprofile.config.inject.ConfigProperty;
+
+import javax.annotation.PostConstruct;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.enterprise.event.TransactionPhase;
+import javax.inject.Inject;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Serves feeds from per-follower timelines held in memory, filled when Articles are published (fan-out on write).
+ * <p>
+ * When an Article is committed its id is pushed into the timeline of each of its author's followers that is cached.
+ * A follower without a timeline has it rebuilt from the database the next time they read their feed. Authors with
+ * more than <code>api.timeline.fanout-limit</code> followers aren't pushed, so one post can't stall the write path;
+ * their Articles are pulled at read time and merged in. Who is pushed and who is pulled is always decided by the
+ * FollowGraph's follower counts, and an author crossing the limit has their followers' timelines rebuilt.
+ * <p>
+ * Anything a timeline can't answer exactly, such as a page past its oldest entry, or an offset into a feed that has
+ * pulled authors, is read with the feed query instead.
+ */
+@ApplicationScoped
+public class Timelines {
+
+    private static final Comparator<Article> NEWEST_FIRST = Comparator.comparing(Article::getCreatedAt)
+            .thenComparing(Article::getId).reversed();
+
+    @Inject
+    private ArticleDAO articleDAO;
+
+    @Inject
+    private FollowGraph followGraph;
+
+    @Inject
+    @ConfigProperty(name = "api.timeline.size", defaultValue = "200")
+    private int size;
+
+    @Inject
+    @ConfigProperty(name = "api.timeline.count", defaultValue = "10000")
+    private int count;
+
+    @Inject
+    @ConfigProperty(name = "api.timeline.fanout-limit", defaultValue = "1000")
+    private int fanoutLimit;
+
+    private BoundedCache<String, TimelineBuffer> timelines;
+
+    // Counts changes to timelines, so a rebuild that raced with one isn't cached. Guarded by this.
+    private long generation;
+
+    @PostConstruct
+    private void init() {
+        timelines = new BoundedCache<>(count);
+    }
+
+    /**
+     * @param username the username of the Profile reading their feed, for the feed query fallback
+     * @param email    the email of the Profile reading their feed
+     * @param limit    greater than 0, as checked by ArticleResource
+     * @param cursor   if not null, the page starts after the cursor's Article and offset is ignored
+     * @param fields   the fields of each Article to read
+     * @return the same Articles, in the same order, as ArticleDAO.readFeedArticles
+     */
+    public List<Article> readFeed(String username, String email, int limit, int offset, ArticleCursor cursor,
+                                  ArticleFields fields) {
+        List<String> pulledAuthors = followGraph.getFollowing(email).stream()
+                .filter(this::isPulled)
+                .collect(Collectors.toList());
+        if (!pulledAuthors.isEmpty() && cursor == null && offset > 0) {
+            return articleDAO.readFeedArticles(username, limit, offset, cursor, fields);
+        }
+
+        TimelineBuffer timeline = getTimeline(email);
+        int[] ids;
+        boolean beyondTimeline;
+        synchronized (timeline) { // Only held for the copy, as fanOut waits for it while holding this
+            ids = cursor == null
+                    ? timeline.ids(offset, limit)
+                    : timeline.idsBefore(cursor.getCreatedAt(), cursor.getId(), limit);
+            beyondTimeline = ids.length < limit && timeline.isTruncated();
+        }
+        if (beyondTimeline) {
+            return articleDAO.readFeedArticles(username, limit, offset, cursor, fields);
+        }
+
+        List<Integer> pushedIds = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            pushedIds.add(id);
+        }
+        List<Article> pushed = articleDAO.readArticles(pushedIds, fields);
+        if (pushed.size() < ids.length) {
+            // An Article was deleted since it was pushed, so the page would come up short
+            return articleDAO.readFeedArticles(username, limit, offset, cursor, fields);
+        }
+        if (pulledAuthors.isEmpty()) {
+            return pushed;
+        }
+
+        // Merge in the pulled authors' newest Articles. An author who recently crossed the fan-out limit can be in both
+        Map<Integer, Article> merged = new LinkedHashMap<>();
+        pushed.forEach(article -> merged.put(article.getId(), article));
+        articleDAO.readArticlesByAuthors(pulledAuthors, limit, cursor, fields)
+                .forEach(article -> merged.putIfAbsent(article.getId(), article));
+        return merged.values().stream()
+                .sorted(NEWEST_FIRST)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public void onArticleEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ArticleEvent event) {
+        switch (event.getType()) {
+            case CREATED:
+                fanOut(event.getAuthorEmail(), timeline -> timeline.add(event.getCreatedAt(), event.getArticleId()));
+                break;
+            case DELETED:
+                fanOut(event.getAuthorEmail(), timeline -> timeline.remove(event.getArticleId()));
+                break;
+            default:
+                break;
+        }
+    }
+
+    public synchronized void onProfileEvent(@Observes(during = TransactionPhase.AFTER_SUCCESS) ProfileEvent event) {
+        if (event.getType() == ProfileEvent.Type.UPDATED) {
+            return;
+        }
+        // The follower's timeline gains or loses a whole author, so it's rebuilt rather than patched
+        generation++;
+        timelines.invalidate(event.getEmail());
+
+        // An author dropping back to the limit was pulled while above it, so their recent Articles were never pushed.
+        // The FollowGraph may see this event before or after us, so a count either side of the limit is a crossing.
+        int followers = followGraph.countFollowers(event.getFollowedEmail());
+        if (followers == fanoutLimit || followers == fanoutLimit + 1) {
+            followGraph.getFollowers(event.getFollowedEmail()).forEach(timelines::invalidate);
+        }
+    }
+
+    private boolean isPulled(String authorEmail) {
+        return followGraph.countFollowers(authorEmail) > fanoutLimit;
+    }
+
+    private synchronized void fanOut(String authorEmail, Consumer<TimelineBuffer> change) {
+        if (isPulled(authorEmail)) {
+            return;
+        }
+        generation++;
+        for (String follower : followGraph.getFollowers(authorEmail)) {
+            TimelineBuffer timeline = timelines.get(follower);
+            if (timeline != null) {
+                synchronized (timeline) {
+                    change.accept(timeline);
+                }
+            }
+        }
+    }
+
+    private TimelineBuffer getTimeline(String email) {
+        TimelineBuffer timeline = timelines.get(email);
+        if (timeline != null) {
+            return timeline;
+        }
+
+        long generation;
+        synchronized (this) {
+            generation = this.generation;
+        }
+        List<String> pushedAuthors = followGraph.getFollowing(email).stream()
+                .filter(author -> !isPulled(author))
+                .collect(Collectors.toList());
+        List<Object[]> entries = articleDAO.readTimelineEntries(pushedAuthors, size);
+        timeline = new TimelineBuffer(size);
+        for (Object[] entry : entries) {
+            timeline.add((LocalDateTime) entry[0], (Integer) entry[1]);
+        }
+        timeline.setTruncated(entries.size() == size);
+
+        synchronized (this) {
+            // Cache it only if nothing was pushed while it was read, or a pushed Article could be missing from it
+            if (generation == this.generation) {
+                timelines.put(email, timeline);
+            }
+        }
+        return timeline;
+    }
+
+}
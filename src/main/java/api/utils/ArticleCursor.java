@@ -0,0 +1,67 @@
+package api.utils;
+
+import api.model.Article;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * An opaque keyset pagination cursor, pointing at the last Article of a page by its (createdAt, id) sort key.
+ * <p>
+ * The next page is everything strictly older than the cursor, so it can be read straight off the
+ * (articleCreatedAt, articleId) index however deep the page is, and doesn't shift when new Articles are published.
+ */
+public class ArticleCursor {
+
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime createdAt;
+    private final int id;
+
+    public ArticleCursor(LocalDateTime createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static ArticleCursor of(Article article) {
+        return new ArticleCursor(article.getCreatedAt(), article.getId());
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the url safe token handed out to clients as <code>nextCursor</code>
+     */
+    public String encode() {
+        String key = createdAt.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @param cursor a token previously returned by {@link #encode()}
+     * @return the decoded cursor. null if cursor is null or empty.
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static ArticleCursor decode(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        try {
+            String key = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = key.lastIndexOf(SEPARATOR);
+            return new ArticleCursor(LocalDateTime.parse(key.substring(0, separator)),
+                    Integer.parseInt(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("Invalid cursor: " + cursor, e);
+        }
+    }
+
+}
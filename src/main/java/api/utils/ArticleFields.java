@@ -0,0 +1,107 @@
+package api.utils;
+
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * The fields of an Article a client asked for with the <code>fields</code> query parameter, which decide both what is
+ * read from the database and what is written.
+ * <p>
+ * Lists leave out the body by default, as list views only show the title and description.
+ */
+public class ArticleFields {
+
+    public enum Field {
+        SLUG("slug", "slug"),
+        TITLE("title", "title"),
+        DESCRIPTION("description", "description"),
+        BODY("body", "body"),
+        TAG_LIST("tagList", "tagList"),
+        CREATED_AT("createdAt", "createdAt"),
+        UPDATED_AT("updatedAt", "updatedAt"),
+        FAVORITED("favorited", null), // read per caller, not from the Article
+        FAVORITES_COUNT("favoritesCount", "favoritesCount"),
+        AUTHOR("author", "author");
+
+        private final String name;
+        private final String attribute;
+
+        Field(String name, String attribute) {
+            this.name = name;
+            this.attribute = attribute;
+        }
+    }
+
+    // Always read whatever is written: the cursor, the list ETag and the fragment cache use these for every Article,
+    // and an unfetched attribute would be loaded with the rest of the row, body included, one Article at a time. id
+    // and version are read by JPA regardless.
+    private static final String[] REQUIRED_ATTRIBUTES = {"slug", "createdAt", "changedAt", "favoritesCount", "author"};
+
+    public static final ArticleFields ALL = new ArticleFields(EnumSet.allOf(Field.class));
+    public static final ArticleFields LIST = new ArticleFields(EnumSet.complementOf(EnumSet.of(Field.BODY)));
+
+    private final Set<Field> fields;
+    private final Set<String> attributes;
+    private final int mask;
+
+    private ArticleFields(EnumSet<Field> fields) {
+        this.fields = Collections.unmodifiableSet(fields);
+        Set<String> attributes = new LinkedHashSet<>();
+        Collections.addAll(attributes, REQUIRED_ATTRIBUTES);
+        int mask = 0;
+        for (Field field : fields) {
+            if (field.attribute != null) {
+                attributes.add(field.attribute);
+            }
+            mask |= 1 << field.ordinal();
+        }
+        this.attributes = Collections.unmodifiableSet(attributes);
+        this.mask = mask;
+    }
+
+    /**
+     * @param fields   comma separated field names, as they are written. null or empty for the defaults.
+     * @param defaults the fields to use when none are given
+     * @throws IllegalArgumentException if a name isn't a field of an Article
+     */
+    public static ArticleFields parse(String fields, ArticleFields defaults) {
+        if (fields == null || fields.trim().isEmpty()) {
+            return defaults;
+        }
+        EnumSet<Field> selected = EnumSet.noneOf(Field.class);
+        for (String name : fields.split(",")) {
+            selected.add(byName(name.trim()));
+        }
+        return new ArticleFields(selected);
+    }
+
+    private static Field byName(String name) {
+        for (Field field : Field.values()) {
+            if (field.name.equals(name)) {
+                return field;
+            }
+        }
+        throw new IllegalArgumentException("Unknown Article field: " + name);
+    }
+
+    public boolean has(Field field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * @return the names of the Article attributes to read
+     */
+    public Set<String> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * @return a bit for each field, identifying this selection
+     */
+    public int getMask() {
+        return mask;
+    }
+
+}
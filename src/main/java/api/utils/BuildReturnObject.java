@@ -1,126 +1,47 @@
 package api.utils;
 
-import api.model.Article;
-import api.model.Comment;
+import api.cache.Caller;
 import api.model.Profile;
-import api.model.Tag;
 
 import javax.json.*;
-import java.time.LocalDateTime;
 import java.util.*;
 
+/**
+ * Builds the user and error response bodies. Articles, Comments and Profiles are streamed by api.json.JsonResponses.
+ */
 public class BuildReturnObject {
 
     public static JsonObject buildUserObject(Profile profile, String authHeader) {
-        JsonObjectBuilder builder = buildProfileBuilder(profile);
-        JsonObjectBuilder wrapper = Json.createObjectBuilder();
-
-        builder.add("email", profile.getEmail())
-                .add("token", authHeader.replace("Token ", ""));
-
-        wrapper.add("user", builder.build());
-        return wrapper.build();
+        return buildUserObject(profile.getEmail(), buildProfileBuilder(profile), authHeader);
     }
 
-    public static JsonObject buildAuthorObject(Profile author, Profile currentUser) {
-        JsonObjectBuilder builder = buildProfileBuilder(author);
-        JsonObjectBuilder wrapper = Json.createObjectBuilder();
-
-        builder.add("following", (currentUser != null && currentUser.getFollowing().contains(author)) ? true : false);
-
-        wrapper.add("author", builder.build());
-        return wrapper.build();
+    public static JsonObject buildUserObject(Caller caller, String authHeader) {
+        JsonObjectBuilder builder = buildProfileBuilder(caller.getUsername(), caller.getBio(), caller.getImage());
+        return buildUserObject(caller.getEmail(), builder, authHeader);
     }
 
-    public static JsonObject buildProfileObject(Profile profile, Profile currentUser) {
-        JsonObjectBuilder builder = buildProfileBuilder(profile);
+    private static JsonObject buildUserObject(String email, JsonObjectBuilder builder, String authHeader) {
         JsonObjectBuilder wrapper = Json.createObjectBuilder();
 
-        builder.add("following", (currentUser != null && currentUser.getFollowing().contains(profile)) ? true : false);
+        builder.add("email", email)
+                .add("token", authHeader.replace("Token ", ""));
 
-        wrapper.add("profile", builder.build());
+        wrapper.add("user", builder.build());
         return wrapper.build();
     }
 
     private static JsonObjectBuilder buildProfileBuilder(Profile profile) {
-        JsonObjectBuilder builder = Json.createObjectBuilder();
-
-        builder.add("username", profile.getUsername())
-                .add("bio", profile.getBio() == null ? JsonObject.NULL : Json.createValue(profile.getBio()))
-                .add("image", profile.getImage() == null ? JsonObject.NULL : Json.createValue(profile.getImage()));
-
-        return builder;
-    }
-
-    /**
-     * @param article     the article to build a Json object for
-     * @param currentUser the user making the request. null represents an unauthenticated request.
-     * @return the built Json object for the Article
-     */
-    public static JsonObject buildArticleObject(Article article, Profile currentUser) {
-        JsonObjectBuilder builder = Json.createObjectBuilder();
-        JsonObjectBuilder wrapper = Json.createObjectBuilder();
-
-        builder.add("slug", article.getSlug()).add("title", article.getTitle())
-                .add("description", article.getDescription() == null ? JsonObject.NULL : Json.createValue(article.getDescription()))
-                .add("body", article.getBody() == null ? JsonObject.NULL : Json.createValue(article.getBody()))
-                .add("tagList", buildTagList(article.getTagList())).add("createdAt", formatTime(article.getCreatedAt()))
-                .add("updatedAt", formatTime(article.getUpdatedAt()))
-                .add("favorited", article.getFavoritedBy().contains(currentUser))
-                .add("favoritesCount", article.getFavoritedBy().size())
-                .add("author", buildAuthorObject(article.getAuthor(), currentUser));
-
-        wrapper.add("article", builder.build());
-        return wrapper.build();
-    }
-
-    public static JsonObject buildArticlesObject(List<Article> articles, Profile currentUser) {
-        JsonArrayBuilder arrayBuilder = Json.createArrayBuilder();
-        JsonObjectBuilder wrapper = Json.createObjectBuilder();
-
-        for (Article article : articles) {
-            arrayBuilder.add(buildArticleObject(article, currentUser).get("article"));
-        }
-        JsonArray articlesArrayBuilt = arrayBuilder.build();
-        wrapper.add("articles", articlesArrayBuilt);
-        wrapper.add("articlesCount", articlesArrayBuilt.size());
-        return wrapper.build();
-    }
-
-    private static JsonArray buildTagList(Set<Tag> tagList) {
-        JsonArrayBuilder builder = Json.createArrayBuilder();
-
-        tagList.forEach(tag -> builder.add(tag.getTag()));
-
-        return builder.build();
+        return buildProfileBuilder(profile.getUsername(), profile.getBio(), profile.getImage());
     }
 
-    public static JsonObject buildCommentObject(Comment comment, Profile currentUser) {
+    private static JsonObjectBuilder buildProfileBuilder(String username, String bio, String image) {
         JsonObjectBuilder builder = Json.createObjectBuilder();
-        JsonObjectBuilder wrapper = Json.createObjectBuilder();
-
-        builder.add("id", comment.getId())
-                .add("createdAt", formatTime(comment.getCreatedAt()))
-                .add("updatedAt", formatTime(comment.getUpdatedAt()))
-                .add("body", comment.getBody())
-                .add("author", buildAuthorObject(comment.getAuthor(), currentUser));
-
-        wrapper.add("comment", builder.build());
-        return wrapper.build();
-    }
 
-    public static JsonObject buildCommentsObject(Iterable<Comment> comments, Profile currentUser) {
-        JsonArrayBuilder builder = Json.createArrayBuilder();
-        JsonObjectBuilder wrapper = Json.createObjectBuilder();
+        builder.add("username", username)
+                .add("bio", bio == null ? JsonObject.NULL : Json.createValue(bio))
+                .add("image", image == null ? JsonObject.NULL : Json.createValue(image));
 
-        comments.forEach(comment -> builder.add(buildCommentObject(comment, currentUser).get("comment")));
-
-        wrapper.add("comments", builder.build());
-        return wrapper.build();
-    }
-
-    private static String formatTime(LocalDateTime time) {
-        return time.toString().substring(0, 23).concat("Z");
+        return builder;
     }
 
     public static JsonObject buildErrorObject(String errorMessage) {
@@ -0,0 +1,64 @@
+package api.utils;
+
+import api.model.Comment;
+import api.view.CommentView;
+
+import java.time.LocalDateTime;
+
+/**
+ * An opaque keyset pagination cursor, pointing at the last Comment of a page by its (createdAt, id) sort key.
+ * <p>
+ * Comments are read oldest first, so the next page is everything strictly newer than the cursor, read straight off
+ * the (commentArticle, commentCreatedAt, commentId) index. Tokens use the same format as ArticleCursor.
+ */
+public class CommentCursor {
+
+    private final LocalDateTime createdAt;
+    private final int id;
+
+    public CommentCursor(LocalDateTime createdAt, int id) {
+        this.createdAt = createdAt;
+        this.id = id;
+    }
+
+    public static CommentCursor of(Comment comment) {
+        return new CommentCursor(comment.getCreatedAt(), comment.getId());
+    }
+
+    public static CommentCursor of(CommentView comment) {
+        return new CommentCursor(comment.getCreatedAt(), comment.getId());
+    }
+
+    /**
+     * @return a cursor matching every Comment created strictly after the given time
+     */
+    public static CommentCursor after(LocalDateTime createdAt) {
+        return new CommentCursor(createdAt, Integer.MAX_VALUE);
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * @return the url safe token handed out to clients as <code>nextCursor</code>
+     */
+    public String encode() {
+        return new ArticleCursor(createdAt, id).encode();
+    }
+
+    /**
+     * @param cursor a token previously returned by {@link #encode()}
+     * @return the decoded cursor. null if cursor is null or empty.
+     * @throws IllegalArgumentException if the token is malformed
+     */
+    public static CommentCursor decode(String cursor) {
+        ArticleCursor key = ArticleCursor.decode(cursor);
+        return key == null ? null : new CommentCursor(key.getCreatedAt(), key.getId());
+    }
+
+}
@@ -0,0 +1,99 @@
+package api.utils;
+
+import javax.ws.rs.core.EntityTag;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Helpers for answering conditional requests.
+ * <p>
+ * Resources compare the validators themselves rather than through an injected <code>Request</code>, so the same
+ * check works when they are called in-process by InProcessDispatcher.
+ * <p>
+ * The ETag is the validator that decides. Last-Modified is only given to <code>notModified</code> where it covers
+ * everything in the response, which excludes anything that depends on the caller, like favorited or following, and
+ * lists, where a deletion doesn't make anything newer.
+ */
+public class EntityTags {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * @return an EntityTag that changes whenever any of the parts do
+     */
+    public static EntityTag of(Object... parts) {
+        long hash = FNV_OFFSET;
+        for (Object part : parts) {
+            String value = String.valueOf(part);
+            // Each part's length goes first, so ("ab", "c") and ("a", "bc") hash different sequences
+            hash = (hash ^ value.length()) * FNV_PRIME;
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * FNV_PRIME;
+            }
+        }
+        return new EntityTag(Long.toHexString(hash));
+    }
+
+    /**
+     * @return the latest of the times as a Last-Modified date, ignoring nulls. null if there are none.
+     */
+    public static Date lastModified(LocalDateTime... times) {
+        LocalDateTime latest = null;
+        for (LocalDateTime time : times) {
+            if (time != null && (latest == null || time.isAfter(latest))) {
+                latest = time;
+            }
+        }
+        return latest == null ? null : Date.from(latest.atZone(ZoneId.systemDefault()).toInstant());
+    }
+
+    /**
+     * Evaluates If-None-Match, or If-Modified-Since when there is no If-None-Match, as RFC 7232 orders them.
+     *
+     * @param lastModified when the response last changed, or null if If-Modified-Since can't be answered
+     * @return true if the client's copy is current, meaning a 304 can be returned
+     */
+    public static boolean notModified(String ifNoneMatch, String ifModifiedSince, EntityTag etag, Date lastModified) {
+        if (ifNoneMatch != null) {
+            return matches(ifNoneMatch, etag);
+        }
+        if (ifModifiedSince == null || lastModified == null) {
+            return false;
+        }
+        try {
+            ZonedDateTime since = ZonedDateTime.parse(ifModifiedSince, DateTimeFormatter.RFC_1123_DATE_TIME);
+            // The header only has whole seconds
+            return !lastModified.toInstant().truncatedTo(ChronoUnit.SECONDS).isAfter(since.toInstant());
+        } catch (DateTimeParseException e) {
+            return false; // An invalid date is ignored
+        }
+    }
+
+    /**
+     * @param ifNoneMatch the value of the request's If-None-Match header, may be null
+     * @return true if ifNoneMatch matches etag, meaning the client's copy is current and a 304 can be returned
+     */
+    public static boolean matches(String ifNoneMatch, EntityTag etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        String quoted = '"' + etag.getValue() + '"';
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals("*") || candidate.equals(quoted)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+}
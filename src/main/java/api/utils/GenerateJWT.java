@@ -13,6 +13,7 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.Key;
 import java.security.KeyStore;
+import java.util.Arrays;
 import java.util.Base64;
 
 public class GenerateJWT {
@@ -31,7 +32,7 @@ public class GenerateJWT {
                 .put("jti", Long.toHexString(System.nanoTime())) // Unique value
                 .put("sub", userName) // Subject name
                 .put("upn", userEmail) // Subject Email
-                .put("iss", jwtIssuer).put("groups", new JsonArray().add("user"));
+                .put("iss", jwtIssuer).put("groups", buildGroups(config, userEmail));
 
         String token = provider.generateToken(claimsObj, new JWTOptions().setAlgorithm("RS256"));
 
@@ -39,6 +40,18 @@ public class GenerateJWT {
 
     }
 
+    /**
+     * @return the "user" group, and the "admin" group if userEmail is listed in api.admin.emails
+     */
+    private static JsonArray buildGroups(Config config, String userEmail) {
+        JsonArray groups = new JsonArray().add("user");
+        String[] adminEmails = config.getOptionalValue("api.admin.emails", String[].class).orElse(new String[0]);
+        if (Arrays.asList(adminEmails).contains(userEmail)) {
+            groups.add("admin");
+        }
+        return groups;
+    }
+
     private final static String keystorePath = System.getProperty("user.dir") + "/resources/security/key.p12";
 
     private static String getPrivateKey() throws IOException {
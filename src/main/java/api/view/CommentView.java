@@ -0,0 +1,63 @@
+package api.view;
+
+import java.time.LocalDateTime;
+
+/**
+ * A Comment and the fields of its author that are written with it, projected from one joined row.
+ */
+public final class CommentView {
+
+    private final int id;
+    private final LocalDateTime createdAt;
+    private final LocalDateTime updatedAt;
+    private final String body;
+    private final String authorEmail;
+    private final String authorUsername;
+    private final String authorBio;
+    private final String authorImage;
+
+    public CommentView(int id, LocalDateTime createdAt, LocalDateTime updatedAt, String body, String authorEmail,
+                       String authorUsername, String authorBio, String authorImage) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.updatedAt = updatedAt;
+        this.body = body;
+        this.authorEmail = authorEmail;
+        this.authorUsername = authorUsername;
+        this.authorBio = authorBio;
+        this.authorImage = authorImage;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public String getAuthorEmail() {
+        return authorEmail;
+    }
+
+    public String getAuthorUsername() {
+        return authorUsername;
+    }
+
+    public String getAuthorBio() {
+        return authorBio;
+    }
+
+    public String getAuthorImage() {
+        return authorImage;
+    }
+
+}
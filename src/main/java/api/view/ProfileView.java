@@ -0,0 +1,54 @@
+package api.view;
+
+import java.time.LocalDateTime;
+
+/**
+ * The fields of a Profile a read writes or validates with, projected straight from the query's row.
+ * <p>
+ * Unlike a Profile, it is never managed by a persistence context, so reading one costs no change tracking and can't
+ * load anything further.
+ */
+public final class ProfileView {
+
+    private final String email;
+    private final String username;
+    private final String bio;
+    private final String image;
+    private final int version;
+    private final LocalDateTime updatedAt;
+
+    public ProfileView(String email, String username, String bio, String image, int version,
+                       LocalDateTime updatedAt) {
+        this.email = email;
+        this.username = username;
+        this.bio = bio;
+        this.image = image;
+        this.version = version;
+        this.updatedAt = updatedAt;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public String getUsername() {
+        return username;
+    }
+
+    public String getBio() {
+        return bio;
+    }
+
+    public String getImage() {
+        return image;
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+}
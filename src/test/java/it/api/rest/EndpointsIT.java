@@ -10,7 +10,14 @@ import javax.ws.rs.client.Client;
 import javax.ws.rs.client.ClientBuilder;
 import javax.ws.rs.client.Entity;
 import javax.ws.rs.core.Response;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Date;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -22,6 +29,7 @@ import static org.junit.jupiter.api.Assertions.assertTrue;
 public class EndpointsIT {
     private static String baseUrl;
     private static String userJWT;
+    private static String followerJWT;
     private static long timestamp;
 
     private static Client client;
@@ -96,6 +104,377 @@ public class EndpointsIT {
         }
     }
 
+    @Test
+    @Order(3)
+    public void testListArticlesCursor() {
+        String endpoint = baseUrl + "/articles";
+        String testString = "{"
+                + "  \"article\": {"
+                + "    \"title\": \"How to train your dragon 2\","
+                + "    \"description\": \"So toothless\","
+                + "    \"body\": \"It a dragon\","
+                + "    \"tagList\": [\"dragons\"]"
+                + "  }"
+                + "}";
+
+        try (Response response = client.target(endpoint).request().header("Authorization", userJWT).post(Entity.json(testString))) {
+            this.assertResponse(endpoint, response);
+        }
+
+        String nextCursor;
+        try (Response response = client.target(endpoint).queryParam("author", "Jacob" + timestamp).queryParam("limit", 1).request().get()) {
+            this.assertResponse(endpoint, response);
+
+            JsonObject responseBody = response.readEntity(JsonObject.class);
+            assertEquals(1, responseBody.getJsonArray("articles").size(), "The first page should contain one Article");
+            assertEquals("How to train your dragon 2", responseBody.getJsonArray("articles").getJsonObject(0).getString("title"), "The newest Article should be on the first page");
+            nextCursor = responseBody.getString("nextCursor");
+        }
+
+        try (Response response = client.target(endpoint).queryParam("author", "Jacob" + timestamp).queryParam("limit", 1).queryParam("cursor", nextCursor).request().get()) {
+            this.assertResponse(endpoint, response);
+
+            JsonObject responseBody = response.readEntity(JsonObject.class);
+            assertEquals("How to train your dragon", responseBody.getJsonArray("articles").getJsonObject(0).getString("title"), "The page after the cursor should contain the older Article");
+        }
+    }
+
+    @Test
+    @Order(4)
+    public void testCommentsSince() {
+        String slug;
+        try (Response response = client.target(baseUrl + "/articles").queryParam("author", "Jacob" + timestamp).queryParam("limit", 1).request().get()) {
+            slug = response.readEntity(JsonObject.class).getJsonArray("articles").getJsonObject(0).getString("slug");
+        }
+
+        String endpoint = baseUrl + "/articles/" + slug + "/comments";
+        int firstId = 0;
+        for (String body : new String[]{"First", "Second"}) {
+            String testString = "{ \"comment\": { \"body\": \"" + body + "\" } }";
+            try (Response response = client.target(endpoint).request().header("Authorization", userJWT).post(Entity.json(testString))) {
+                this.assertResponse(endpoint, response);
+                if (firstId == 0) {
+                    firstId = response.readEntity(JsonObject.class).getJsonObject("comment").getInt("id");
+                }
+            }
+        }
+
+        try (Response response = client.target(endpoint).queryParam("limit", 1).request().get()) {
+            this.assertResponse(endpoint, response);
+
+            JsonObject responseBody = response.readEntity(JsonObject.class);
+            assertEquals("First", responseBody.getJsonArray("comments").getJsonObject(0).getString("body"), "Comments should be returned oldest first");
+        }
+
+        try (Response response = client.target(endpoint).queryParam("since", firstId).request().get()) {
+            this.assertResponse(endpoint, response);
+
+            JsonObject responseBody = response.readEntity(JsonObject.class);
+            assertEquals(1, responseBody.getJsonArray("comments").size(), "Only the Comments newer than since should be returned");
+            assertEquals("Second", responseBody.getJsonArray("comments").getJsonObject(0).getString("body"), "Only the Comments newer than since should be returned");
+        }
+    }
+
+    @Test
+    @Order(5)
+    public void testConditionalGetArticle() {
+        String slug;
+        try (Response response = client.target(baseUrl + "/articles").queryParam("author", "Jacob" + timestamp).queryParam("limit", 1).request().get()) {
+            slug = response.readEntity(JsonObject.class).getJsonArray("articles").getJsonObject(0).getString("slug");
+        }
+
+        String endpoint = baseUrl + "/articles/" + slug;
+        String etag;
+        try (Response response = client.target(endpoint).request().get()) {
+            this.assertResponse(endpoint, response);
+            etag = response.getHeaderString("ETag");
+            assertTrue(etag != null && response.getLastModified() != null, "An Article should be returned with an ETag and Last-Modified");
+        }
+
+        try (Response response = client.target(endpoint).request().header("If-None-Match", etag).get()) {
+            assertEquals(304, response.getStatus(), "A current ETag should be answered with 304");
+        }
+
+        String updateString = "{ \"article\": { \"body\": \"Updated body\" } }";
+        try (Response response = client.target(endpoint).request().header("Authorization", userJWT).put(Entity.json(updateString))) {
+            this.assertResponse(endpoint, response);
+        }
+
+        try (Response response = client.target(endpoint).request().header("If-None-Match", etag).get()) {
+            this.assertResponse(endpoint, response);
+            assertTrue(!etag.equals(response.getHeaderString("ETag")), "Updating the Article should change its ETag");
+        }
+    }
+
+    @Test
+    @Order(6)
+    public void testListArticleFields() {
+        String endpoint = baseUrl + "/articles";
+        try (Response response = client.target(endpoint).queryParam("author", "Jacob" + timestamp).request().get()) {
+            this.assertResponse(endpoint, response);
+
+            JsonObject article = response.readEntity(JsonObject.class).getJsonArray("articles").getJsonObject(0);
+            assertTrue(article.containsKey("title") && !article.containsKey("body"), "Lists should leave out the body by default");
+        }
+
+        try (Response response = client.target(endpoint).queryParam("author", "Jacob" + timestamp).queryParam("fields", "slug,body").request().get()) {
+            this.assertResponse(endpoint, response);
+
+            JsonObject article = response.readEntity(JsonObject.class).getJsonArray("articles").getJsonObject(0);
+            assertEquals(2, article.size(), "Only the requested fields should be returned");
+            assertEquals("Updated body", article.getString("body"), "A requested body should be returned");
+        }
+
+        try (Response response = client.target(endpoint).queryParam("fields", "slug,secret").request().get()) {
+            assertEquals(422, response.getStatus(), "An unknown field should be rejected");
+        }
+    }
+
+    @Test
+    @Order(7)
+    public void testArticleNotFound() {
+        String unknown = baseUrl + "/articles/no-such-article-" + timestamp;
+        try (Response response = client.target(unknown).request().get()) {
+            assertEquals(404, response.getStatus(), "An unknown slug should be answered with 404");
+        }
+        try (Response response = client.target(unknown + "/comments").request().get()) {
+            assertEquals(404, response.getStatus(), "The Comments of an unknown slug should be answered with 404");
+        }
+        try (Response response = client.target(unknown + "/favorite").request().header("Authorization", userJWT).post(Entity.json(""))) {
+            assertEquals(404, response.getStatus(), "Favoriting an unknown slug should be answered with 404");
+        }
+
+        String slug;
+        String testString = "{ \"article\": { \"title\": \"Short lived " + timestamp + "\", \"description\": \"Gone soon\", \"body\": \"Bye\", \"tagList\": [] } }";
+        try (Response response = client.target(baseUrl + "/articles").request().header("Authorization", userJWT).post(Entity.json(testString))) {
+            this.assertResponse(baseUrl + "/articles", response);
+            slug = response.readEntity(JsonObject.class).getJsonObject("article").getString("slug");
+        }
+
+        String endpoint = baseUrl + "/articles/" + slug;
+        try (Response response = client.target(endpoint).request().get()) {
+            this.assertResponse(endpoint, response);
+        }
+        try (Response response = client.target(endpoint).request().header("Authorization", userJWT).delete()) {
+            this.assertResponse(endpoint, response);
+        }
+
+        try (Response response = client.target(endpoint).request().get()) {
+            assertEquals(404, response.getStatus(), "A deleted Article should be answered with 404");
+        }
+        try (Response response = client.target(endpoint + "/comments").request().get()) {
+            assertEquals(404, response.getStatus(), "The Comments of a deleted Article should be answered with 404");
+        }
+    }
+
+    @Test
+    @Order(8)
+    public void testFeedTimeline() {
+        String endpoint = baseUrl + "/users";
+        String user = "{ \"user\": { \"username\": \"Follower" + timestamp + "\", \"email\": \"follower" + timestamp + "@jake.jake\", \"password\": \"jakejake\" } }";
+        try (Response response = client.target(endpoint).request().post(Entity.json(user))) {
+            this.assertResponse(endpoint, response);
+            followerJWT = response.readEntity(JsonObject.class).getJsonObject("user").getString("token");
+        }
+        endpoint = baseUrl + "/profiles/Jacob" + timestamp + "/follow";
+        try (Response response = client.target(endpoint).request().header("Authorization", followerJWT).post(Entity.json(""))) {
+            this.assertResponse(endpoint, response);
+        }
+
+        // Read the feed once first, so the follower's timeline is cached and the new Articles are pushed into it
+        readFeed(null);
+        String older = createArticle("Feed older " + timestamp);
+        String newer = createArticle("Feed newer " + timestamp);
+
+        JsonObject page = readFeed(null);
+        assertEquals(newer, page.getJsonArray("articles").getJsonObject(0).getString("slug"), "A followed author's new Article should be first on the feed");
+        String cursor = page.getString("nextCursor");
+        assertEquals(older, readFeed(cursor).getJsonArray("articles").getJsonObject(0).getString("slug"), "The page after the cursor should start with the older new Article");
+
+        deleteArticle(older);
+        JsonObject after = readFeed(cursor);
+        assertTrue(after.getJsonArray("articles").isEmpty() || !older.equals(after.getJsonArray("articles").getJsonObject(0).getString("slug")), "A deleted Article should leave the feed after the cursor");
+
+        deleteArticle(newer);
+        assertTrue(!newer.equals(readFeed(null).getJsonArray("articles").getJsonObject(0).getString("slug")), "A deleted Article should leave the first page of the feed");
+
+        endpoint = baseUrl + "/articles/feed";
+        try (Response response = client.target(endpoint).queryParam("limit", 0).request().header("Authorization", followerJWT).get()) {
+            assertEquals(422, response.getStatus(), "A limit of 0 should be rejected, whichever way the feed is read");
+        }
+    }
+
+    @Test
+    @Order(9)
+    public void testFollowUnfollow() {
+        String endpoint = baseUrl + "/profiles/Jacob" + timestamp + "/follow";
+        assertTrue(readFollowing(), "The follower should still be following after the feed test");
+
+        try (Response response = client.target(endpoint).request().header("Authorization", followerJWT).delete()) {
+            this.assertResponse(endpoint, response);
+            assertEquals(false, response.readEntity(JsonObject.class).getJsonObject("profile").getBoolean("following"), "The unfollow response should not be following");
+        }
+        assertEquals(false, readFollowing(), "The profile should not be followed after an unfollow");
+
+        try (Response response = client.target(endpoint).request().header("Authorization", followerJWT).post(Entity.json(""))) {
+            this.assertResponse(endpoint, response);
+            assertEquals(true, response.readEntity(JsonObject.class).getJsonObject("profile").getBoolean("following"), "The follow response should be following");
+        }
+        assertEquals(true, readFollowing(), "The profile should be followed again after a second follow");
+    }
+
+    private boolean readFollowing() {
+        String endpoint = baseUrl + "/profiles/Jacob" + timestamp;
+        try (Response response = client.target(endpoint).request().header("Authorization", followerJWT).get()) {
+            this.assertResponse(endpoint, response);
+            return response.readEntity(JsonObject.class).getJsonObject("profile").getBoolean("following");
+        }
+    }
+
+    /**
+     * Compares the streamed responses with what BuildReturnObject used to write, as fixed strings. Only the values the
+     * server generates, such as the slug, times and ids, are taken from the response.
+     */
+    @Test
+    @Order(10)
+    public void testResponsesMatchBuiltObjects() {
+        String title = "Bytes \\\"quoted\\\" caf\u00e9 " + timestamp; // as JSON
+        String endpoint = baseUrl + "/articles";
+        String testString = "{"
+                + "  \"article\": {"
+                + "    \"title\": \"" + title + "\","
+                + "    \"description\": \"Same as before\","
+                + "    \"body\": \"Line\\nbreak\","
+                + "    \"tagList\": [\"bytes\"]"
+                + "  }"
+                + "}";
+        String slug;
+        String article;
+        try (Response response = client.target(endpoint).request().header("Authorization", userJWT).post(Entity.json(testString))) {
+            this.assertResponse(endpoint, response);
+            String actual = response.readEntity(String.class);
+            slug = generated(actual, "slug");
+            article = "{\"slug\":\"" + slug + "\","
+                    + "\"title\":\"" + title + "\","
+                    + "\"description\":\"Same as before\","
+                    + "\"body\":\"Line\\nbreak\","
+                    + "\"tagList\":[\"bytes\"],"
+                    + "\"createdAt\":\"" + generated(actual, "createdAt") + "\","
+                    + "\"updatedAt\":\"" + generated(actual, "updatedAt") + "\","
+                    + "\"favorited\":false,"
+                    + "\"favoritesCount\":0,"
+                    + "\"author\":{\"author\":%s}}";
+            assertEquals("{\"article\":" + String.format(article, profile(false)) + "}", actual,
+                    "A created Article should be written as BuildReturnObject wrote it");
+        }
+
+        endpoint = baseUrl + "/articles/" + slug;
+        try (Response response = client.target(endpoint).request().header("Authorization", followerJWT).get()) {
+            this.assertResponse(endpoint, response);
+            assertEquals("{\"article\":" + String.format(article, profile(true)) + "}", response.readEntity(String.class),
+                    "A cached Article should be written as BuildReturnObject wrote it");
+        }
+
+        endpoint = baseUrl + "/articles";
+        try (Response response = client.target(endpoint).queryParam("author", "Jacob" + timestamp).queryParam("limit", 1)
+                .queryParam("fields", "slug,title,description,body,tagList,createdAt,updatedAt,favorited,favoritesCount,author")
+                .request().header("Authorization", followerJWT).get()) {
+            this.assertResponse(endpoint, response);
+            String actual = response.readEntity(String.class);
+            assertEquals("{\"articles\":[" + String.format(article, profile(true)) + "],"
+                            + "\"articlesCount\":1,"
+                            + "\"nextCursor\":\"" + generated(actual, "nextCursor") + "\"}", actual,
+                    "A list should be written as BuildReturnObject wrote it");
+        }
+
+        endpoint = baseUrl + "/articles/" + slug + "/comments";
+        String comment;
+        try (Response response = client.target(endpoint).request().header("Authorization", userJWT).post(Entity.json("{ \"comment\": { \"body\": \"Same \\\"bytes\\\"\" } }"))) {
+            this.assertResponse(endpoint, response);
+            String actual = response.readEntity(String.class);
+            Matcher id = Pattern.compile("\"id\":(\\d+),").matcher(actual);
+            assertTrue(id.find(), "A created Comment should have an id");
+            comment = "{\"id\":" + id.group(1) + ","
+                    + "\"createdAt\":\"" + generated(actual, "createdAt") + "\","
+                    + "\"updatedAt\":\"" + generated(actual, "updatedAt") + "\","
+                    + "\"body\":\"Same \\\"bytes\\\"\","
+                    + "\"author\":{\"author\":%s}}";
+            assertEquals("{\"comment\":" + String.format(comment, profile(false)) + "}", actual,
+                    "A created Comment should be written as BuildReturnObject wrote it");
+        }
+        try (Response response = client.target(endpoint).request().header("Authorization", followerJWT).get()) {
+            this.assertResponse(endpoint, response);
+            assertEquals("{\"comments\":[" + String.format(comment, profile(true)) + "],\"nextCursor\":null}",
+                    response.readEntity(String.class), "Comments should be written as BuildReturnObject wrote them");
+        }
+
+        endpoint = baseUrl + "/profiles/Jacob" + timestamp;
+        try (Response response = client.target(endpoint).request().header("Authorization", followerJWT).get()) {
+            this.assertResponse(endpoint, response);
+            assertEquals("{\"profile\":" + profile(true) + "}", response.readEntity(String.class),
+                    "A Profile should be written as BuildReturnObject wrote it");
+        }
+    }
+
+    /**
+     * @return the test author's Profile as BuildReturnObject wrote it. A new User has no bio or image.
+     */
+    private String profile(boolean following) {
+        return "{\"username\":\"Jacob" + timestamp + "\",\"bio\":null,\"image\":null,\"following\":" + following + "}";
+    }
+
+    /**
+     * @return the first value of the string field in the response body, which the server generated
+     */
+    private String generated(String body, String name) {
+        Matcher value = Pattern.compile("\"" + name + "\":\"([^\"]*)\"").matcher(body);
+        assertTrue(value.find(), name + " should be written");
+        return value.group(1);
+    }
+
+    @Test
+    @Order(11)
+    public void testSparseListReadsNoBody() throws IOException {
+        Path trace = Paths.get(System.getProperty("server.logs"), "trace.log");
+        long before = Files.size(trace);
+
+        // A selection no earlier test made, so neither the list nor its fragments are cached
+        String endpoint = baseUrl + "/articles";
+        try (Response response = client.target(endpoint).queryParam("author", "Jacob" + timestamp).queryParam("fields", "slug,title,createdAt").request().get()) {
+            this.assertResponse(endpoint, response);
+            assertTrue(!response.readEntity(JsonObject.class).getJsonArray("articles").isEmpty(), "The author's Articles should be listed");
+        }
+
+        byte[] traced = Files.readAllBytes(trace);
+        String sql = new String(traced, (int) before, traced.length - (int) before, StandardCharsets.UTF_8).toUpperCase();
+        assertTrue(sql.contains("ARTICLESLUG"), "The list query should have been traced");
+        assertTrue(!sql.contains("ARTICLEBODY"), "A list that leaves out the body should never read it");
+    }
+
+    private JsonObject readFeed(String cursor) {
+        String endpoint = baseUrl + "/articles/feed";
+        try (Response response = client.target(endpoint).queryParam("limit", 1).queryParam("cursor", cursor).request().header("Authorization", followerJWT).get()) {
+            this.assertResponse(endpoint, response);
+            return response.readEntity(JsonObject.class);
+        }
+    }
+
+    private String createArticle(String title) {
+        String endpoint = baseUrl + "/articles";
+        String article = "{ \"article\": { \"title\": \"" + title + "\", \"description\": \"For the feed\", \"body\": \"Feed\", \"tagList\": [] } }";
+        try (Response response = client.target(endpoint).request().header("Authorization", userJWT).post(Entity.json(article))) {
+            this.assertResponse(endpoint, response);
+            return response.readEntity(JsonObject.class).getJsonObject("article").getString("slug");
+        }
+    }
+
+    private void deleteArticle(String slug) {
+        String endpoint = baseUrl + "/articles/" + slug;
+        try (Response response = client.target(endpoint).request().header("Authorization", userJWT).delete()) {
+            this.assertResponse(endpoint, response);
+        }
+    }
+
     /**
      * <p>
      * Asserts that the given URL has the correct response code of 200.